@@ -0,0 +1,42 @@
+package com.goimay.config;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Pool riêng cho các response bất đồng bộ của MVC (StreamingResponseBody như export CSV),
+ * để một file export dài không chiếm thread xử lý request của Tomcat.
+ * Không khai báo pool thành bean, để @Async của ứng dụng vẫn dùng executor mặc định của Spring Boot.
+ */
+@Configuration
+public class AsyncWebConfig implements WebMvcConfigurer {
+
+    private final ThreadPoolTaskExecutor streamingExecutor = new ThreadPoolTaskExecutor();
+    private final long timeoutMillis;
+
+    public AsyncWebConfig(@Value("${app.streaming.threads:2}") int threads,
+                          @Value("${app.streaming.queue-capacity:8}") int queueCapacity,
+                          @Value("${app.streaming.timeout-ms:1800000}") long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+        streamingExecutor.setCorePoolSize(threads);
+        streamingExecutor.setMaxPoolSize(threads);
+        streamingExecutor.setQueueCapacity(queueCapacity);
+        streamingExecutor.setThreadNamePrefix("mvc-streaming-");
+        streamingExecutor.initialize();
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(streamingExecutor);
+        configurer.setDefaultTimeout(timeoutMillis);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        streamingExecutor.shutdown();
+    }
+}
@@ -1,6 +1,8 @@
 package com.goimay.config;
 
+import com.goimay.service.JwtClaims;
 import com.goimay.service.JwtService;
+import com.goimay.service.UserStateCache;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.Cookie;
@@ -9,22 +11,22 @@ import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.List;
 
 @Component
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     
     private final JwtService jwtService;
-    private final UserDetailsService userDetailsService;
+    private final UserStateCache userStateCache;
     
     private static final String JWT_COOKIE_NAME = "jwt";
     
@@ -67,16 +69,22 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
         
         try {
-            String userEmail = jwtService.extractUsername(jwt);
-            
-            if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
-                
-                if (jwtService.isTokenValid(jwt, userDetails)) {
+            if (SecurityContextHolder.getContext().getAuthentication() == null) {
+                // Một lần parse: chữ ký + hạn dùng + claims; trạng thái người dùng lấy từ cache thay vì đọc bảng users.
+                JwtClaims claims = jwtService.parse(jwt);
+                UserStateCache.UserState state = claims.email() != null ? userStateCache.get(claims.email()) : null;
+
+                if (state != null && state.enabled()
+                        && (claims.userId() == null || claims.userId().equals(state.id()))
+                        && (claims.role() == null || claims.role() == state.role())) {
+                    // Token cũ (chưa có uid/role) dùng giá trị từ cache; role khác cache thì token bị từ chối ở trên.
+                    JwtClaims principal = claims.userId() != null && claims.role() != null
+                            ? claims
+                            : new JwtClaims(claims.email(), state.id(), state.role(), claims.issuedAt(), claims.expiresAt());
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                            userDetails,
+                            principal,
                             null,
-                            userDetails.getAuthorities()
+                            List.of(new SimpleGrantedAuthority("ROLE_" + principal.role().name()))
                     );
                     authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                     SecurityContextHolder.getContext().setAuthentication(authToken);
@@ -31,6 +31,27 @@ public class SchemaMigrationRunner implements ApplicationRunner {
         } catch (Exception e) {
             log.debug("Skip migrate orders.payment_method: {}", e.getMessage());
         }
+
+        try {
+            int updated = jdbcTemplate.update("UPDATE products SET effective_price = COALESCE(sale_price, price) " +
+                    "WHERE effective_price IS NULL OR effective_price <> COALESCE(sale_price, price)");
+            if (updated > 0) {
+                log.info("Backfilled products.effective_price for {} rows", updated);
+            }
+        } catch (Exception e) {
+            log.debug("Skip backfill products.effective_price: {}", e.getMessage());
+        }
+
+        try {
+            int updated = jdbcTemplate.update("UPDATE orders o SET item_count = " +
+                    "(SELECT COALESCE(SUM(i.quantity), 0) FROM order_items i WHERE i.order_id = o.id) " +
+                    "WHERE o.item_count IS NULL");
+            if (updated > 0) {
+                log.info("Backfilled orders.item_count for {} rows", updated);
+            }
+        } catch (Exception e) {
+            log.debug("Skip backfill orders.item_count: {}", e.getMessage());
+        }
     }
 }
 
@@ -0,0 +1,31 @@
+package com.goimay.controller;
+
+import com.goimay.dto.SalesBucketDTO;
+import com.goimay.service.SalesRollupService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/analytics")
+@RequiredArgsConstructor
+public class AdminAnalyticsController {
+
+    private final SalesRollupService salesRollupService;
+
+    /**
+     * GET /api/admin/analytics/sales?granularity=DAY|HOUR&from=yyyy-MM-dd&to=yyyy-MM-dd
+     * Mặc định: 30 ngày gần nhất theo ngày, hoặc hôm nay theo giờ.
+     */
+    @GetMapping("/sales")
+    public ResponseEntity<List<SalesBucketDTO>> sales(
+            @RequestParam(defaultValue = "DAY") String granularity,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(salesRollupService.getSales(granularity, from, to));
+    }
+}
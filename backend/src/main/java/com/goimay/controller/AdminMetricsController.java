@@ -0,0 +1,55 @@
+package com.goimay.controller;
+
+import com.goimay.service.CheckoutAdmission;
+import com.goimay.service.OrderIngestionPipeline;
+import com.goimay.service.ProductCatalogCache;
+import com.goimay.service.StockHoldService;
+import com.goimay.service.UserStateCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/metrics")
+@RequiredArgsConstructor
+public class AdminMetricsController {
+
+    private final ProductCatalogCache productCatalogCache;
+    private final StockHoldService stockHoldService;
+    private final CheckoutAdmission checkoutAdmission;
+    private final OrderIngestionPipeline orderIngestionPipeline;
+    private final UserStateCache userStateCache;
+
+    @GetMapping("/product-cache")
+    public ResponseEntity<Map<String, Object>> productCache() {
+        return ResponseEntity.ok(productCatalogCache.stats());
+    }
+
+    @DeleteMapping("/product-cache")
+    public ResponseEntity<Void> clearProductCache() {
+        productCatalogCache.invalidateAll();
+        return ResponseEntity.noContent().build();
+    }
+
+    @GetMapping("/stock-holds")
+    public ResponseEntity<Map<String, Object>> stockHolds() {
+        return ResponseEntity.ok(stockHoldService.stats());
+    }
+
+    @GetMapping("/checkout-admission")
+    public ResponseEntity<Map<String, Object>> checkoutAdmission() {
+        return ResponseEntity.ok(checkoutAdmission.stats());
+    }
+
+    @GetMapping("/order-ingestion")
+    public ResponseEntity<Map<String, Object>> orderIngestion() {
+        return ResponseEntity.ok(orderIngestionPipeline.stats());
+    }
+
+    @GetMapping("/user-cache")
+    public ResponseEntity<Map<String, Object>> userCache() {
+        return ResponseEntity.ok(userStateCache.stats());
+    }
+}
@@ -1,12 +1,30 @@
 package com.goimay.controller;
 
+import com.goimay.dto.BulkOrderActionRequest;
+import com.goimay.dto.BulkOrderResultDTO;
 import com.goimay.dto.OrderDTO;
+import com.goimay.dto.OrderSummaryDTO;
+import com.goimay.service.OrderEventBroadcaster;
+import com.goimay.service.OrderExportService;
 import com.goimay.service.OrderService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.io.BufferedWriter;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/admin/orders")
@@ -14,10 +32,68 @@ import java.util.List;
 public class AdminOrderController {
 
     private final OrderService orderService;
+    private final OrderEventBroadcaster orderEventBroadcaster;
+    private final OrderExportService orderExportService;
 
+    /**
+     * GET /api/admin/orders?page=0&size=20&status=&paymentMethod=&from=yyyy-MM-dd&to=yyyy-MM-dd
+     * Trả về OrderSummaryDTO (không kèm items); xem chi tiết qua GET /api/admin/orders/{orderId}.
+     * Không còn danh sách toàn bộ đơn kèm items: thiếu page thì trả trang đầu.
+     */
     @GetMapping
-    public ResponseEntity<List<OrderDTO>> getAll() {
-        return ResponseEntity.ok(orderService.adminGetAllOrders());
+    public ResponseEntity<Page<OrderSummaryDTO>> getPage(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String paymentMethod,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(orderService.adminGetOrderSummaries(page, size, status, paymentMethod, from, to));
+    }
+
+    /**
+     * Luồng SSE: "order-created" và "order-status-changed" (data là OrderEvent), "lagged" khi tab đọc quá chậm
+     * và đã bị bỏ sự kiện — khi đó nên tải lại danh sách.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream() {
+        return orderEventBroadcaster.subscribe();
+    }
+
+    /**
+     * GET /api/admin/orders/export?from=yyyy-MM-dd&to=yyyy-MM-dd&gzip=false
+     * CSV (hoặc .csv.gz) gồm mọi dòng hàng của các đơn trong khoảng ngày, kể cả đơn đã lưu trữ.
+     * Mặc định từ đầu tháng hiện tại tới hôm nay. Được ghi trên pool streaming riêng, không chiếm thread request.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.withDayOfMonth(1);
+        if (start.isAfter(end)) {
+            throw new RuntimeException("Khoảng ngày không hợp lệ");
+        }
+        String filename = "orders_" + start + "_" + end + (gzip ? ".csv.gz" : ".csv");
+        StreamingResponseBody body = outputStream -> {
+            OutputStream target = gzip ? new GZIPOutputStream(outputStream, 64 * 1024) : outputStream;
+            Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), 64 * 1024);
+            orderExportService.writeCsv(writer, start.atStartOfDay(), end.plusDays(1).atStartOfDay());
+            writer.flush();
+            if (target instanceof GZIPOutputStream gz) {
+                gz.finish();
+            }
+        };
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .contentType(gzip ? MediaType.parseMediaType("application/gzip") : MediaType.parseMediaType("text/csv;charset=UTF-8"))
+                .body(body);
+    }
+
+    @GetMapping("/{orderId}")
+    public ResponseEntity<OrderDTO> getById(@PathVariable String orderId) {
+        return ResponseEntity.ok(orderService.adminGetOrder(orderId));
     }
 
     @PutMapping("/{orderId}/confirm")
@@ -25,6 +101,19 @@ public class AdminOrderController {
         return ResponseEntity.ok(orderService.adminConfirm(orderId));
     }
 
+    /**
+     * Xác nhận/hủy nhiều đơn trong một request: body {"orderIds": [...]}, trả kết quả theo từng đơn.
+     */
+    @PostMapping("/bulk/confirm")
+    public ResponseEntity<BulkOrderResultDTO> bulkConfirm(@RequestBody BulkOrderActionRequest request) {
+        return ResponseEntity.ok(orderService.adminBulkConfirm(request.getOrderIds()));
+    }
+
+    @PostMapping("/bulk/cancel")
+    public ResponseEntity<BulkOrderResultDTO> bulkCancel(@RequestBody BulkOrderActionRequest request) {
+        return ResponseEntity.ok(orderService.adminBulkCancel(request.getOrderIds()));
+    }
+
     @PutMapping("/{orderId}/cancel")
     public ResponseEntity<OrderDTO> cancel(@PathVariable String orderId) {
         return ResponseEntity.ok(orderService.adminCancel(orderId));
@@ -0,0 +1,27 @@
+package com.goimay.controller;
+
+import com.goimay.dto.ProductDTO;
+import com.goimay.dto.StockAdjustmentRequest;
+import com.goimay.service.ProductService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/products")
+@RequiredArgsConstructor
+public class AdminProductController {
+
+    private final ProductService productService;
+
+    /**
+     * Nhập/xuất kho theo lượng thay đổi, vd. {"delta": 20} khi nhập thêm 20 sản phẩm.
+     */
+    @PostMapping("/{id}/stock")
+    public ResponseEntity<ProductDTO> adjustStock(@PathVariable Long id, @RequestBody StockAdjustmentRequest request) {
+        if (request == null || request.getDelta() == null) {
+            throw new RuntimeException("Thiếu lượng điều chỉnh tồn kho");
+        }
+        return ResponseEntity.ok(productService.adjustStock(id, request.getDelta()));
+    }
+}
@@ -1,12 +1,16 @@
 package com.goimay.controller;
 
 import com.goimay.dto.ArticleDTO;
+import com.goimay.dto.CursorPage;
+import com.goimay.dto.SuggestionDTO;
 import com.goimay.service.ArticleService;
+import com.goimay.service.ContentVersionService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -16,49 +20,83 @@ import java.util.List;
 public class ArticleController {
     
     private final ArticleService articleService;
+    private final ContentVersionService contentVersionService;
     
     @GetMapping
     public ResponseEntity<Page<ArticleDTO>> getAllArticles(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
-        return ResponseEntity.ok(articleService.getAllArticles(page, size));
+            @RequestParam(defaultValue = "10") int size,
+            WebRequest webRequest) {
+        return ConditionalGet.respond(webRequest, contentVersionService.articles(),
+                () -> articleService.getAllArticles(page, size));
+    }
+    
+    /**
+     * Chế độ con trỏ: GET /api/articles?cursor= (rỗng cho trang đầu), sau đó gửi lại nextCursor.
+     */
+    @GetMapping(params = "cursor")
+    public ResponseEntity<CursorPage<ArticleDTO>> getArticlesByCursor(
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            WebRequest webRequest) {
+        return ConditionalGet.respond(webRequest, contentVersionService.articles(),
+                () -> articleService.getArticlesByCursor(cursor, size));
     }
     
     @GetMapping("/category/{categorySlug}")
     public ResponseEntity<Page<ArticleDTO>> getArticlesByCategory(
             @PathVariable String categorySlug,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
-        return ResponseEntity.ok(articleService.getArticlesByCategory(categorySlug, page, size));
+            @RequestParam(defaultValue = "10") int size,
+            WebRequest webRequest) {
+        return ConditionalGet.respond(webRequest, contentVersionService.articles(),
+                () -> articleService.getArticlesByCategory(categorySlug, page, size));
     }
     
     @GetMapping("/slug/{slug}")
-    public ResponseEntity<ArticleDTO> getArticleBySlug(@PathVariable String slug) {
-        return ResponseEntity.ok(articleService.getArticleBySlug(slug));
+    public ResponseEntity<ArticleDTO> getArticleBySlug(@PathVariable String slug, WebRequest webRequest) {
+        return ConditionalGet.respond(webRequest, contentVersionService.articles(),
+                () -> articleService.getArticleBySlug(slug));
     }
     
     @GetMapping("/{id}")
-    public ResponseEntity<ArticleDTO> getArticleById(@PathVariable Long id) {
-        return ResponseEntity.ok(articleService.getArticleById(id));
+    public ResponseEntity<ArticleDTO> getArticleById(@PathVariable Long id, WebRequest webRequest) {
+        return ConditionalGet.respond(webRequest, contentVersionService.articles(),
+                () -> articleService.getArticleById(id));
     }
     
     @GetMapping("/featured")
-    public ResponseEntity<List<ArticleDTO>> getFeaturedArticles() {
-        return ResponseEntity.ok(articleService.getFeaturedArticles());
+    public ResponseEntity<List<ArticleDTO>> getFeaturedArticles(WebRequest webRequest) {
+        return ConditionalGet.respond(webRequest, contentVersionService.articles(),
+                () -> articleService.getFeaturedArticles());
     }
     
     @GetMapping("/latest")
     public ResponseEntity<List<ArticleDTO>> getLatestArticles(
-            @RequestParam(defaultValue = "5") int limit) {
-        return ResponseEntity.ok(articleService.getLatestArticles(limit));
+            @RequestParam(defaultValue = "5") int limit,
+            WebRequest webRequest) {
+        return ConditionalGet.respond(webRequest, contentVersionService.articles(),
+                () -> articleService.getLatestArticles(limit));
+    }
+    
+    /**
+     * Gợi ý khi gõ: chỉ tra trie trong bộ nhớ, không chạm database.
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<List<SuggestionDTO>> suggestArticles(
+            @RequestParam(defaultValue = "") String q,
+            @RequestParam(defaultValue = "8") int limit) {
+        return ResponseEntity.ok(articleService.suggestArticles(q, limit));
     }
     
     @GetMapping("/search")
     public ResponseEntity<Page<ArticleDTO>> searchArticles(
             @RequestParam String keyword,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int size) {
-        return ResponseEntity.ok(articleService.searchArticles(keyword, page, size));
+            @RequestParam(defaultValue = "10") int size,
+            WebRequest webRequest) {
+        return ConditionalGet.respond(webRequest, contentVersionService.articles(),
+                () -> articleService.searchArticles(keyword, page, size));
     }
     
     @PostMapping
@@ -0,0 +1,28 @@
+package com.goimay.controller;
+
+import com.goimay.service.ContentVersion;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.function.Supplier;
+
+/**
+ * GET có điều kiện: nếu If-None-Match / If-Modified-Since khớp phiên bản hiện tại thì trả 304
+ * mà không chạy truy vấn đầy đủ và không serialize body.
+ */
+final class ConditionalGet {
+
+    private ConditionalGet() {
+    }
+
+    static <T> ResponseEntity<T> respond(WebRequest webRequest, ContentVersion version, Supplier<T> body) {
+        if (webRequest.checkNotModified(version.etag(), version.lastModifiedMillis())) {
+            return null;
+        }
+        // no-cache: trình duyệt được lưu nhưng phải xác thực lại (If-None-Match) ở mỗi lần dùng
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .body(body.get());
+    }
+}
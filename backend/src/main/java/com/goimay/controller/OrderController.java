@@ -1,8 +1,16 @@
 package com.goimay.controller;
 
 import com.goimay.dto.CreateOrderRequest;
+import com.goimay.dto.CursorPage;
 import com.goimay.dto.OrderDTO;
+import com.goimay.dto.OrderSummaryDTO;
+import com.goimay.dto.StockHoldDTO;
+import com.goimay.dto.StockHoldRequest;
+import com.goimay.service.CheckoutAdmission;
+import com.goimay.service.IdempotencyStore;
+import com.goimay.service.OrderIngestionPipeline;
 import com.goimay.service.OrderService;
+import com.goimay.service.StockHoldService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -16,11 +24,41 @@ import java.util.List;
 public class OrderController {
 
     private final OrderService orderService;
+    private final IdempotencyStore idempotencyStore;
+    private final CheckoutAdmission checkoutAdmission;
+    private final OrderIngestionPipeline orderIngestionPipeline;
+    private final StockHoldService stockHoldService;
 
+    /**
+     * Client gửi kèm header Idempotency-Key (vd. UUID cho mỗi lần bấm đặt hàng); thử lại với cùng khóa
+     * sẽ nhận lại đơn đã tạo thay vì tạo đơn trùng.
+     * Lúc mở bán, quá nhiều đơn cùng lúc sẽ nhận 503 kèm Retry-After (CheckoutAdmission).
+     * Khi bật app.orders.ingestion.enabled, đơn được ghi theo lô (OrderIngestionPipeline).
+     */
     @PostMapping
-    public ResponseEntity<OrderDTO> create(Authentication authentication, @RequestBody CreateOrderRequest request) {
+    public ResponseEntity<OrderDTO> create(Authentication authentication,
+                                           @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+                                           @RequestBody CreateOrderRequest request) {
         String email = authentication.getName();
-        return ResponseEntity.ok(orderService.createOrder(email, request));
+        return ResponseEntity.ok(idempotencyStore.execute(email, idempotencyKey, request,
+                () -> orderIngestionPipeline.accepts(request)
+                        ? orderIngestionPipeline.place(email, request)
+                        : checkoutAdmission.call(() -> orderService.createOrder(email, request))));
+    }
+
+    /**
+     * Giữ hàng trong lúc khách chuyển khoản; đặt đơn kèm holdId trước khi hết hạn để dùng phần đã giữ.
+     */
+    @PostMapping("/holds")
+    public ResponseEntity<StockHoldDTO> createHold(Authentication authentication, @RequestBody StockHoldRequest request) {
+        String email = authentication.getName();
+        return ResponseEntity.ok(checkoutAdmission.call(() -> stockHoldService.createHold(email, request)));
+    }
+
+    @DeleteMapping("/holds/{holdId}")
+    public ResponseEntity<Void> releaseHold(Authentication authentication, @PathVariable String holdId) {
+        stockHoldService.releaseHold(authentication.getName(), holdId);
+        return ResponseEntity.noContent().build();
     }
 
     @GetMapping("/my")
@@ -29,6 +67,17 @@ public class OrderController {
         return ResponseEntity.ok(orderService.getMyOrders(email));
     }
 
+    /**
+     * GET /api/orders/my?cursor= (rỗng cho trang đầu) — danh sách tóm tắt, không kèm items.
+     */
+    @GetMapping(value = "/my", params = "cursor")
+    public ResponseEntity<CursorPage<OrderSummaryDTO>> myOrdersByCursor(Authentication authentication,
+                                                                        @RequestParam String cursor,
+                                                                        @RequestParam(defaultValue = "10") int size) {
+        String email = authentication.getName();
+        return ResponseEntity.ok(orderService.getMyOrdersByCursor(email, cursor, size));
+    }
+
     @GetMapping("/my/{orderId}")
     public ResponseEntity<OrderDTO> myOrderById(Authentication authentication, @PathVariable String orderId) {
         String email = authentication.getName();
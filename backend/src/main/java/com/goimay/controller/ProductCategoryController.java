@@ -1,11 +1,13 @@
 package com.goimay.controller;
 
 import com.goimay.dto.ProductCategoryDTO;
+import com.goimay.service.ContentVersionService;
 import com.goimay.service.ProductCategoryService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Map;
@@ -16,25 +18,30 @@ import java.util.Map;
 public class ProductCategoryController {
     
     private final ProductCategoryService productCategoryService;
+    private final ContentVersionService contentVersionService;
     
     @GetMapping
-    public ResponseEntity<List<ProductCategoryDTO>> getAllCategories() {
-        return ResponseEntity.ok(productCategoryService.getAllCategories());
+    public ResponseEntity<List<ProductCategoryDTO>> getAllCategories(WebRequest webRequest) {
+        return ConditionalGet.respond(webRequest, contentVersionService.productCategories(),
+                () -> productCategoryService.getAllCategories());
     }
     
     @GetMapping("/active")
-    public ResponseEntity<List<ProductCategoryDTO>> getActiveCategories() {
-        return ResponseEntity.ok(productCategoryService.getActiveCategories());
+    public ResponseEntity<List<ProductCategoryDTO>> getActiveCategories(WebRequest webRequest) {
+        return ConditionalGet.respond(webRequest, contentVersionService.productCategories(),
+                () -> productCategoryService.getActiveCategories());
     }
     
     @GetMapping("/{id}")
-    public ResponseEntity<ProductCategoryDTO> getCategoryById(@PathVariable Long id) {
-        return ResponseEntity.ok(productCategoryService.getCategoryById(id));
+    public ResponseEntity<ProductCategoryDTO> getCategoryById(@PathVariable Long id, WebRequest webRequest) {
+        return ConditionalGet.respond(webRequest, contentVersionService.productCategories(),
+                () -> productCategoryService.getCategoryById(id));
     }
     
     @GetMapping("/slug/{slug}")
-    public ResponseEntity<ProductCategoryDTO> getCategoryBySlug(@PathVariable String slug) {
-        return ResponseEntity.ok(productCategoryService.getCategoryBySlug(slug));
+    public ResponseEntity<ProductCategoryDTO> getCategoryBySlug(@PathVariable String slug, WebRequest webRequest) {
+        return ConditionalGet.respond(webRequest, contentVersionService.productCategories(),
+                () -> productCategoryService.getCategoryBySlug(slug));
     }
     
     @PostMapping
@@ -1,13 +1,20 @@
 package com.goimay.controller;
 
+import com.goimay.dto.CursorPage;
 import com.goimay.dto.ProductDTO;
+import com.goimay.dto.ProductListItemDTO;
+import com.goimay.dto.ProductSearchPage;
+import com.goimay.dto.SuggestionDTO;
+import com.goimay.service.ContentVersionService;
 import com.goimay.service.ProductService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.math.BigDecimal;
 import java.util.List;
 
 @RestController
@@ -16,45 +23,96 @@ import java.util.List;
 public class ProductController {
     
     private final ProductService productService;
+    private final ContentVersionService contentVersionService;
     
     @GetMapping
-    public ResponseEntity<Page<ProductDTO>> getAllProducts(
+    public ResponseEntity<Page<ProductListItemDTO>> getAllProducts(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "12") int size,
-            @RequestParam(defaultValue = "false") boolean includeInactive) {
-        return ResponseEntity.ok(productService.getAllProducts(page, size, includeInactive));
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(defaultValue = "newest") String sort,
+            WebRequest webRequest) {
+        return ConditionalGet.respond(webRequest, contentVersionService.products(),
+                () -> productService.getAllProducts(page, size, minPrice, maxPrice, sort));
+    }
+    
+    /**
+     * Trang quản trị (includeInactive=true) vẫn nhận ProductDTO đầy đủ.
+     * Có kèm cursor thì nhường cho getProductsByCursor, để hai mapping không cùng khớp một request.
+     */
+    @GetMapping(params = {"includeInactive=true", "!cursor"})
+    public ResponseEntity<Page<ProductDTO>> getAllProductsForAdmin(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "12") int size,
+            WebRequest webRequest) {
+        return ConditionalGet.respond(webRequest, contentVersionService.products(),
+                () -> productService.getAllProductsForAdmin(page, size));
+    }
+    
+    /**
+     * Chế độ con trỏ: GET /api/products?cursor= (rỗng cho trang đầu), sau đó gửi lại nextCursor.
+     * Chỉ liệt kê sản phẩm đang bán; includeInactive bị bỏ qua ở chế độ này.
+     */
+    @GetMapping(params = "cursor")
+    public ResponseEntity<CursorPage<ProductListItemDTO>> getProductsByCursor(
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "12") int size,
+            WebRequest webRequest) {
+        return ConditionalGet.respond(webRequest, contentVersionService.products(),
+                () -> productService.getProductsByCursor(cursor, size));
     }
     
     @GetMapping("/category/{category}")
-    public ResponseEntity<Page<ProductDTO>> getProductsByCategory(
+    public ResponseEntity<Page<ProductListItemDTO>> getProductsByCategory(
             @PathVariable String category,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "12") int size) {
-        return ResponseEntity.ok(productService.getProductsByCategory(category, page, size));
+            @RequestParam(defaultValue = "12") int size,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(defaultValue = "newest") String sort,
+            WebRequest webRequest) {
+        return ConditionalGet.respond(webRequest, contentVersionService.products(),
+                () -> productService.getProductsByCategory(category, page, size, minPrice, maxPrice, sort));
     }
     
     @GetMapping("/slug/{slug}")
-    public ResponseEntity<ProductDTO> getProductBySlug(@PathVariable String slug) {
-        return ResponseEntity.ok(productService.getProductBySlug(slug));
+    public ResponseEntity<ProductDTO> getProductBySlug(@PathVariable String slug, WebRequest webRequest) {
+        return ConditionalGet.respond(webRequest, contentVersionService.products(),
+                () -> productService.getProductBySlug(slug));
     }
     
     @GetMapping("/{id}")
-    public ResponseEntity<ProductDTO> getProductById(@PathVariable Long id) {
-        return ResponseEntity.ok(productService.getProductById(id));
+    public ResponseEntity<ProductDTO> getProductById(@PathVariable Long id, WebRequest webRequest) {
+        return ConditionalGet.respond(webRequest, contentVersionService.products(),
+                () -> productService.getProductById(id));
     }
     
     @GetMapping("/sale")
-    public ResponseEntity<List<ProductDTO>> getSaleProducts() {
-        return ResponseEntity.ok(productService.getSaleProducts());
+    public ResponseEntity<List<ProductListItemDTO>> getSaleProducts(WebRequest webRequest) {
+        return ConditionalGet.respond(webRequest, contentVersionService.products(),
+                () -> productService.getSaleProducts());
+    }
+    
+    /**
+     * Gợi ý khi gõ: chỉ tra trie trong bộ nhớ, không chạm database.
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<List<SuggestionDTO>> suggestProducts(
+            @RequestParam(defaultValue = "") String q,
+            @RequestParam(defaultValue = "8") int limit) {
+        return ResponseEntity.ok(productService.suggestProducts(q, limit));
     }
     
     @GetMapping("/search")
-    public ResponseEntity<Page<ProductDTO>> searchProducts(
+    public ResponseEntity<ProductSearchPage<ProductListItemDTO>> searchProducts(
             @RequestParam String keyword,
             @RequestParam(required = false) String category,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "12") int size) {
-        return ResponseEntity.ok(productService.searchProducts(keyword, category, page, size));
+            @RequestParam(defaultValue = "12") int size,
+            WebRequest webRequest) {
+        return ConditionalGet.respond(webRequest, contentVersionService.products(),
+                () -> productService.searchProducts(keyword, category, page, size));
     }
     
     @PostMapping
@@ -1,11 +1,13 @@
 package com.goimay.controller;
 
 import com.goimay.dto.SiteSettingDTO;
+import com.goimay.service.ContentVersionService;
 import com.goimay.service.DataExportImportService;
 import com.goimay.service.SiteSettingService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Map;
@@ -17,25 +19,30 @@ public class SiteSettingController {
     
     private final SiteSettingService service;
     private final DataExportImportService dataExportImportService;
+    private final ContentVersionService contentVersionService;
     
     @GetMapping
-    public ResponseEntity<List<SiteSettingDTO>> getAll() {
-        return ResponseEntity.ok(service.getAll());
+    public ResponseEntity<List<SiteSettingDTO>> getAll(WebRequest webRequest) {
+        return ConditionalGet.respond(webRequest, contentVersionService.siteSettings(),
+                () -> service.getAll());
     }
     
     @GetMapping("/map")
-    public ResponseEntity<Map<String, String>> getSettingsMap() {
-        return ResponseEntity.ok(service.getSettingsMap());
+    public ResponseEntity<Map<String, String>> getSettingsMap(WebRequest webRequest) {
+        return ConditionalGet.respond(webRequest, contentVersionService.siteSettings(),
+                () -> service.getSettingsMap());
     }
     
     @GetMapping("/category/{category}")
-    public ResponseEntity<List<SiteSettingDTO>> getByCategory(@PathVariable String category) {
-        return ResponseEntity.ok(service.getByCategory(category));
+    public ResponseEntity<List<SiteSettingDTO>> getByCategory(@PathVariable String category, WebRequest webRequest) {
+        return ConditionalGet.respond(webRequest, contentVersionService.siteSettings(),
+                () -> service.getByCategory(category));
     }
     
     @GetMapping("/category/{category}/map")
-    public ResponseEntity<Map<String, String>> getSettingsMapByCategory(@PathVariable String category) {
-        return ResponseEntity.ok(service.getSettingsMapByCategory(category));
+    public ResponseEntity<Map<String, String>> getSettingsMapByCategory(@PathVariable String category, WebRequest webRequest) {
+        return ConditionalGet.respond(webRequest, contentVersionService.siteSettings(),
+                () -> service.getSettingsMapByCategory(category));
     }
     
     @GetMapping("/key/{key}")
@@ -0,0 +1,10 @@
+package com.goimay.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BulkOrderActionRequest {
+    private List<String> orderIds;
+}
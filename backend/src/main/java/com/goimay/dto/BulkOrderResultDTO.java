@@ -0,0 +1,35 @@
+package com.goimay.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class BulkOrderResultDTO {
+    private int succeeded;
+    private int failed;
+    private List<Item> results = new ArrayList<>();
+
+    public void add(Item item) {
+        results.add(item);
+        if (item.isSuccess()) {
+            succeeded++;
+        } else {
+            failed++;
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+        private String orderId;
+        private boolean success;
+        private String status;  // trạng thái sau khi xử lý (null nếu không tìm thấy đơn)
+        private String message; // lý do thất bại
+    }
+}
@@ -12,6 +12,7 @@ public class CreateOrderRequest {
     private String email;
     private String note;
     private String paymentMethod; // COD | BANK
+    private String holdId; // phiên giữ hàng (POST /api/orders/holds) được chuyển thành đơn này
     private List<CreateOrderItemRequest> items;
 
     @Data
@@ -0,0 +1,21 @@
+package com.goimay.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Trang theo con trỏ (keyset): không có totalElements/totalPages vì không chạy COUNT(*).
+ * nextCursor = null nghĩa là đã hết dữ liệu.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> content;
+    private String nextCursor;
+    private int size;
+    private boolean hasNext;
+}
@@ -0,0 +1,18 @@
+package com.goimay.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+@Data
+public class OrderSummaryDTO {
+    private String id;
+    private String fullName;
+    private String phone;
+    private String email;
+    private BigDecimal total;
+    private String status;
+    private String paymentMethod;
+    private Integer itemCount;
+    private String createdAt;
+}
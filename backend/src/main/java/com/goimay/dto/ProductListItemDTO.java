@@ -0,0 +1,20 @@
+package com.goimay.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductListItemDTO {
+    private Long id;
+    private String name;
+    private String slug;
+    private BigDecimal price;
+    private BigDecimal salePrice;
+    private String thumbnail;
+    private String productCategory;
+}
@@ -0,0 +1,30 @@
+package com.goimay.dto;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * Trang kết quả tìm kiếm, giữ nguyên các trường của Page và bổ sung facets, didYouMean.
+ * facets = null khi kết quả đến từ truy vấn JPA dự phòng; didYouMean chỉ có khi truy vấn đã được sửa lỗi chính tả.
+ */
+public class ProductSearchPage<T> extends PageImpl<T> {
+
+    private final ProductFacetsDTO facets;
+    private final String didYouMean;
+
+    public ProductSearchPage(List<T> content, Pageable pageable, long total, ProductFacetsDTO facets, String didYouMean) {
+        super(content, pageable, total);
+        this.facets = facets;
+        this.didYouMean = didYouMean;
+    }
+
+    public ProductFacetsDTO getFacets() {
+        return facets;
+    }
+
+    public String getDidYouMean() {
+        return didYouMean;
+    }
+}
@@ -0,0 +1,32 @@
+package com.goimay.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+public class SalesBucketDTO {
+    private String bucketStart;
+    private Metrics total = new Metrics();
+    private Map<String, Metrics> byPaymentMethod = new LinkedHashMap<>();
+    private Map<String, Metrics> byStatus = new LinkedHashMap<>();
+    private Map<String, Metrics> byProduct = new LinkedHashMap<>(); // khóa là productId
+
+    public SalesBucketDTO(String bucketStart) {
+        this.bucketStart = bucketStart;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Metrics {
+        private long orderCount;
+        private BigDecimal revenue = BigDecimal.ZERO;
+        private long units;
+    }
+}
@@ -0,0 +1,9 @@
+package com.goimay.dto;
+
+import lombok.Data;
+
+@Data
+public class StockAdjustmentRequest {
+    /** Lượng cộng vào tồn kho; âm để giảm. */
+    private Integer delta;
+}
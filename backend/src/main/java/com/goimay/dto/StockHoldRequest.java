@@ -0,0 +1,10 @@
+package com.goimay.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class StockHoldRequest {
+    private List<CreateOrderRequest.CreateOrderItemRequest> items;
+}
@@ -0,0 +1,32 @@
+package com.goimay.exception;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Thao tác đã được nhận và vẫn đang chạy nhưng quá thời gian chờ (trả về 503 + Retry-After như ServiceBusyException).
+ * IdempotencyStore giữ Idempotency-Key gắn với result thay vì giải phóng khóa, để client thử lại nhận đúng kết quả đó
+ * chứ không chạy lại thao tác.
+ */
+public class PendingResultException extends ServiceBusyException {
+
+    private final transient CompletableFuture<?> result;
+    private final long waitMillis;
+
+    /**
+     * @param result     hoàn tất khi thao tác xong (hoặc lỗi)
+     * @param waitMillis lần thử lại với cùng khóa chờ result tối đa bao lâu trước khi lại trả 503
+     */
+    public PendingResultException(String message, long retryAfterSeconds, CompletableFuture<?> result, long waitMillis) {
+        super(message, retryAfterSeconds);
+        this.result = result;
+        this.waitMillis = waitMillis;
+    }
+
+    public CompletableFuture<?> getResult() {
+        return result;
+    }
+
+    public long getWaitMillis() {
+        return waitMillis;
+    }
+}
@@ -0,0 +1,18 @@
+package com.goimay.exception;
+
+/**
+ * Máy chủ đang quá tải cho thao tác này; client nên thử lại sau retryAfterSeconds (trả về 503 + Retry-After).
+ */
+public class ServiceBusyException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ServiceBusyException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
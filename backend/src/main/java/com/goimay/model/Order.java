@@ -11,7 +11,12 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_created", columnList = "created_at, id"),
+        @Index(name = "idx_orders_user_created", columnList = "user_id, created_at, id"),
+        @Index(name = "idx_orders_status_created", columnList = "status, created_at"),
+        @Index(name = "idx_orders_payment_created", columnList = "payment_method, created_at")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -56,6 +61,14 @@ public class Order {
     @Column(nullable = false)
     private BigDecimal total = BigDecimal.ZERO;
 
+    /** Tổng số lượng sản phẩm trong đơn, lưu sẵn để danh sách đơn không phải đọc order_items. */
+    @Column(name = "item_count")
+    private Integer itemCount;
+
+    /** Đơn đã trừ tồn kho lúc đặt; hủy đơn sẽ hoàn lại đúng một lần rồi đặt về false. */
+    @Column(name = "stock_reserved")
+    private Boolean stockReserved;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
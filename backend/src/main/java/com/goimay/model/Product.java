@@ -11,7 +11,12 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_active_created", columnList = "active, created_at, id"),
+        @Index(name = "idx_products_updated_at", columnList = "updated_at"),
+        @Index(name = "idx_products_active_category_price", columnList = "active, product_category, effective_price"),
+        @Index(name = "idx_products_active_price", columnList = "active, effective_price")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -36,11 +41,22 @@ public class Product {
     @Column(name = "sale_price")
     private BigDecimal salePrice;
     
+    /**
+     * Giá thực bán (salePrice nếu có, ngược lại price), lưu thành cột để lọc/sắp xếp theo giá bằng index.
+     */
+    @Column(name = "effective_price")
+    private BigDecimal effectivePrice;
+    
     private String thumbnail;
     
     @Column(name = "product_category")
     private String productCategory;
     
+    /**
+     * Chỉ ghi khi tạo sản phẩm; sau đó mọi thay đổi đi qua câu UPDATE nguyên tử trong StockReservations
+     * (đặt/hủy đơn, điều chỉnh của admin), để lần lưu entity cũ không ghi đè phần đã trừ.
+     */
+    @Column(updatable = false)
     private Integer stock;
     
     private boolean active;
@@ -59,11 +75,21 @@ public class Product {
     protected void onCreate() {
         createdAt = LocalDateTime.now();
         updatedAt = LocalDateTime.now();
+        effectivePrice = salePrice != null ? salePrice : price;
     }
     
     @PreUpdate
     protected void onUpdate() {
         updatedAt = LocalDateTime.now();
+        effectivePrice = salePrice != null ? salePrice : price;
+    }
+
+    /**
+     * Đổi updatedAt khi chỉ bảng con (product_images) thay đổi: collection mappedBy không làm dòng products "bẩn"
+     * nên @PreUpdate không chạy, trong khi phiên bản danh mục (COUNT + MAX(updatedAt)) chỉ nhìn bảng products.
+     */
+    public void touch() {
+        updatedAt = LocalDateTime.now();
     }
 }
 
@@ -0,0 +1,8 @@
+package com.goimay.model;
+
+public enum RollupDimension {
+    TOTAL,
+    PAYMENT_METHOD,
+    STATUS,
+    PRODUCT
+}
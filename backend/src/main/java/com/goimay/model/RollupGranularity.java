@@ -0,0 +1,6 @@
+package com.goimay.model;
+
+public enum RollupGranularity {
+    HOUR,
+    DAY
+}
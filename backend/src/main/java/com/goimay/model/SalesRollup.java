@@ -0,0 +1,55 @@
+package com.goimay.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Một ô tổng hợp doanh số: (độ chi tiết, đầu giờ/ngày, chiều, khóa của chiều) → số đơn, doanh thu, số sản phẩm.
+ * Được cộng dồn bằng upsert mỗi khi đơn được tạo hoặc đổi trạng thái, không quét lại orders.
+ */
+@Entity
+@Table(name = "sales_rollups", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_sales_rollups_cell",
+                columnNames = {"granularity", "bucket_start", "dimension", "dimension_key"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private RollupGranularity granularity;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private RollupDimension dimension;
+
+    /** Tên trạng thái / phương thức thanh toán / id sản phẩm; "" với TOTAL. */
+    @Column(name = "dimension_key", nullable = false, length = 64)
+    private String dimensionKey;
+
+    @Column(name = "order_count", nullable = false)
+    private long orderCount;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal revenue = BigDecimal.ZERO;
+
+    @Column(nullable = false)
+    private long units;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,51 @@
+package com.goimay.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Một dòng của phiên giữ hàng: số lượng đã trừ khỏi products.stock cho khách đang thanh toán chuyển khoản.
+ * Các dòng cùng holdId tạo thành một phiên; hết hạn mà chưa đặt đơn thì được cộng trả tồn kho và xóa.
+ */
+@Entity
+@Table(name = "stock_holds", indexes = {
+        @Index(name = "idx_stock_holds_hold", columnList = "hold_id"),
+        @Index(name = "idx_stock_holds_expires", columnList = "expires_at"),
+        @Index(name = "idx_stock_holds_user", columnList = "user_id, expires_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockHold {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "hold_id", nullable = false, length = 36)
+    private String holdId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,12 @@
+package com.goimay.repository;
+
+import com.goimay.model.ArchivedOrder;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ArchivedOrderRepository extends JpaRepository<ArchivedOrder, String> {
+    Optional<ArchivedOrder> findByIdAndUserId(String id, Long userId);
+}
@@ -1,12 +1,16 @@
 package com.goimay.repository;
 
 import com.goimay.model.Article;
+import com.goimay.repository.projection.ArticleTitle;
+import com.goimay.repository.projection.ContentStamp;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,6 +19,9 @@ public interface ArticleRepository extends JpaRepository<Article, Long> {
     
     Optional<Article> findBySlug(String slug);
     
+    @Query("SELECT COUNT(a) AS count, MAX(a.updatedAt) AS lastModified FROM Article a")
+    ContentStamp findContentStamp();
+    
     Page<Article> findByPublishedTrue(Pageable pageable);
     
     Page<Article> findByCategoryIdAndPublishedTrue(Long categoryId, Pageable pageable);
@@ -23,9 +30,22 @@ public interface ArticleRepository extends JpaRepository<Article, Long> {
     
     List<Article> findByFeaturedTrueAndPublishedTrue();
     
+    @Query("SELECT a.id AS id, a.title AS title, a.slug AS slug FROM Article a WHERE a.published = true")
+    List<ArticleTitle> findPublishedTitles();
+    
     @Query("SELECT a FROM Article a WHERE a.published = true ORDER BY a.publishedAt DESC")
     List<Article> findLatestArticles(Pageable pageable);
     
+    @Query("SELECT a FROM Article a WHERE a.published = true ORDER BY a.publishedAt DESC, a.id DESC")
+    List<Article> findPublishedFirstPage(Pageable limit);
+    
+    @Query("SELECT a FROM Article a WHERE a.published = true AND " +
+           "(a.publishedAt < :publishedAt OR (a.publishedAt = :publishedAt AND a.id < :id)) " +
+           "ORDER BY a.publishedAt DESC, a.id DESC")
+    List<Article> findPublishedAfter(@Param("publishedAt") LocalDateTime publishedAt,
+                                     @Param("id") Long id,
+                                     Pageable limit);
+    
     @Query("SELECT a FROM Article a WHERE a.published = true AND " +
            "(LOWER(a.title) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
            "LOWER(a.summary) LIKE LOWER(CONCAT('%', :keyword, '%')))")
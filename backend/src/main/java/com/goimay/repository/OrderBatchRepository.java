@@ -0,0 +1,60 @@
+package com.goimay.repository;
+
+import com.goimay.model.Order;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Chèn nhiều dòng orders trong một JDBC batch cho luồng ghi đơn theo lô (OrderIngestionPipeline).
+ */
+@Repository
+@RequiredArgsConstructor
+public class OrderBatchRepository {
+
+    private static final String INSERT_SQL = "INSERT INTO orders " +
+            "(id, user_id, status, payment_method, full_name, phone, address, email, note, " +
+            "subtotal, shipping_fee, total, item_count, stock_reserved, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    /**
+     * @param userIds user_id tương ứng từng đơn (Order tạm không gắn User)
+     */
+    public void insertAll(List<Order> orders, List<Long> userIds) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(orders.size());
+        for (int i = 0; i < orders.size(); i++) {
+            Order order = orders.get(i);
+            rows.add(new Object[]{
+                    order.getId(), userIds.get(i), order.getStatus().name(), order.getPaymentMethod().name(),
+                    order.getFullName(), order.getPhone(), order.getAddress(), order.getEmail(), order.getNote(),
+                    order.getSubtotal(), order.getShippingFee(), order.getTotal(), order.getItemCount(),
+                    Boolean.TRUE.equals(order.getStockReserved()),
+                    Timestamp.valueOf(order.getCreatedAt()), Timestamp.valueOf(order.getUpdatedAt())});
+        }
+        jdbc.getJdbcTemplate().batchUpdate(INSERT_SQL, rows);
+    }
+
+    /**
+     * Các id đã có trong orders (phát lại write-ahead log sau khi khởi động lại không được chèn trùng).
+     */
+    public Set<String> findExistingIds(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(jdbc.queryForList("SELECT id FROM orders WHERE id IN (:ids)",
+                new MapSqlParameterSource("ids", ids), String.class));
+    }
+}
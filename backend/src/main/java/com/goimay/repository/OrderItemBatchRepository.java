@@ -0,0 +1,51 @@
+package com.goimay.repository;
+
+import com.goimay.model.OrderItem;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Ghi order_items bằng một JDBC batch. OrderItem dùng IDENTITY nên Hibernate không gộp được các INSERT;
+ * với rewriteBatchedStatements của MySQL, cả giỏ hàng thành một câu INSERT nhiều dòng.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OrderItemBatchRepository {
+
+    private static final String INSERT_SQL = "INSERT INTO order_items " +
+            "(order_id, product_id, name, slug, thumbnail, unit_price, quantity, line_total) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void insertAll(String orderId, List<OrderItem> items) {
+        insert(items, item -> orderId);
+    }
+
+    /**
+     * Chèn dòng của nhiều đơn một lượt; mã đơn lấy từ item.getOrder().
+     */
+    public void insertAll(List<OrderItem> items) {
+        insert(items, item -> item.getOrder().getId());
+    }
+
+    private void insert(List<OrderItem> items, Function<OrderItem, String> orderId) {
+        if (items.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, items, items.size(), (ps, item) -> {
+            ps.setString(1, orderId.apply(item));
+            ps.setLong(2, item.getProductId());
+            ps.setString(3, item.getName());
+            ps.setString(4, item.getSlug());
+            ps.setString(5, item.getThumbnail());
+            ps.setBigDecimal(6, item.getUnitPrice());
+            ps.setInt(7, item.getQuantity());
+            ps.setBigDecimal(8, item.getLineTotal());
+        });
+    }
+}
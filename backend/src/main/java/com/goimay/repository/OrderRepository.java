@@ -1,16 +1,70 @@
 package com.goimay.repository;
 
 import com.goimay.model.Order;
+import com.goimay.model.OrderStatus;
+import com.goimay.model.PaymentMethod;
 import com.goimay.model.User;
+import com.goimay.repository.projection.OrderSummary;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, String> {
+    @EntityGraph(attributePaths = "items")
     List<Order> findByUserOrderByCreatedAtDesc(User user);
     Optional<Order> findByIdAndUser(String id, User user);
-}
 
+    @EntityGraph(attributePaths = "items")
+    Optional<Order> findWithItemsById(String id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM Order o WHERE o.id IN :ids")
+    List<Order> findAllByIdForUpdate(@Param("ids") Collection<String> ids);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Order o SET o.status = :target, o.updatedAt = :now WHERE o.id IN :ids AND o.status IN :from")
+    int updateStatus(@Param("ids") Collection<String> ids,
+                     @Param("from") Collection<OrderStatus> from,
+                     @Param("target") OrderStatus target,
+                     @Param("now") LocalDateTime now);
+
+    String SUMMARY_SELECT = "SELECT o.id AS id, o.fullName AS fullName, o.phone AS phone, o.email AS email, " +
+            "o.total AS total, o.status AS status, o.paymentMethod AS paymentMethod, " +
+            "o.itemCount AS itemCount, o.createdAt AS createdAt ";
+
+    String SUMMARY_FILTER = "FROM Order o WHERE (:status IS NULL OR o.status = :status) " +
+            "AND (:paymentMethod IS NULL OR o.paymentMethod = :paymentMethod) " +
+            "AND o.createdAt >= :from AND o.createdAt < :to";
+
+    @Query(value = SUMMARY_SELECT + SUMMARY_FILTER,
+           countQuery = "SELECT COUNT(o) " + SUMMARY_FILTER)
+    Page<OrderSummary> findSummaries(@Param("status") OrderStatus status,
+                                     @Param("paymentMethod") PaymentMethod paymentMethod,
+                                     @Param("from") LocalDateTime from,
+                                     @Param("to") LocalDateTime to,
+                                     Pageable pageable);
+
+    @Query(SUMMARY_SELECT + "FROM Order o WHERE o.user.id = :userId ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderSummary> findUserSummariesFirstPage(@Param("userId") Long userId, Pageable limit);
+
+    @Query(SUMMARY_SELECT + "FROM Order o WHERE o.user.id = :userId AND " +
+           "(o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderSummary> findUserSummariesAfter(@Param("userId") Long userId,
+                                              @Param("createdAt") LocalDateTime createdAt,
+                                              @Param("id") String id,
+                                              Pageable limit);
+}
@@ -1,7 +1,9 @@
 package com.goimay.repository;
 
 import com.goimay.model.ProductCategory;
+import com.goimay.repository.projection.ContentStamp;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -21,4 +23,7 @@ public interface ProductCategoryRepository extends JpaRepository<ProductCategory
     boolean existsByName(String name);
     
     boolean existsBySlug(String slug);
+    
+    @Query("SELECT COUNT(c) AS count, MAX(c.updatedAt) AS lastModified FROM ProductCategory c")
+    ContentStamp findContentStamp();
 }
@@ -2,14 +2,21 @@ package com.goimay.repository;
 
 import com.goimay.model.Product;
 import com.goimay.model.ProductImage;
+import com.goimay.repository.projection.ProductImageUrl;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface ProductImageRepository extends JpaRepository<ProductImage, Long> {
     List<ProductImage> findByProductOrderByDisplayOrderAscIdAsc(Product product);
     void deleteByProduct(Product product);
-}
 
+    @Query("SELECT i.product.id AS productId, i.url AS url FROM ProductImage i " +
+           "WHERE i.product.id IN :productIds ORDER BY i.displayOrder ASC, i.id ASC")
+    List<ProductImageUrl> findUrlsByProductIds(@Param("productIds") Collection<Long> productIds);
+}
@@ -1,6 +1,8 @@
 package com.goimay.repository;
 
 import com.goimay.model.Product;
+import com.goimay.repository.projection.ContentStamp;
+import com.goimay.repository.projection.ProductSummary;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -8,6 +10,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,18 +20,63 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     
     Optional<Product> findBySlug(String slug);
     
-    Page<Product> findByActiveTrue(Pageable pageable);
+    @Query("SELECT COUNT(p) AS count, MAX(p.updatedAt) AS lastModified FROM Product p")
+    ContentStamp findContentStamp();
     
-    Page<Product> findByProductCategoryAndActiveTrue(String category, Pageable pageable);
+    String SUMMARY_SELECT = "SELECT p.id AS id, p.name AS name, p.slug AS slug, p.price AS price, " +
+            "p.salePrice AS salePrice, p.thumbnail AS thumbnail, p.productCategory AS productCategory, " +
+            "p.createdAt AS createdAt FROM Product p ";
     
-    List<Product> findBySalePriceNotNullAndActiveTrue();
+    @Query(value = SUMMARY_SELECT + "WHERE p.active = true",
+           countQuery = "SELECT COUNT(p) FROM Product p WHERE p.active = true")
+    Page<ProductSummary> findActiveSummaries(Pageable pageable);
     
-    @Query("SELECT p FROM Product p WHERE p.active = true AND " +
+    @Query(value = SUMMARY_SELECT + "WHERE p.active = true AND p.productCategory = :category",
+           countQuery = "SELECT COUNT(p) FROM Product p WHERE p.active = true AND p.productCategory = :category")
+    Page<ProductSummary> findActiveSummariesByCategory(@Param("category") String category, Pageable pageable);
+    
+    @Query(value = SUMMARY_SELECT + "WHERE p.active = true AND p.effectivePrice BETWEEN :minPrice AND :maxPrice",
+           countQuery = "SELECT COUNT(p) FROM Product p WHERE p.active = true " +
+                   "AND p.effectivePrice BETWEEN :minPrice AND :maxPrice")
+    Page<ProductSummary> findActiveSummariesByPrice(@Param("minPrice") BigDecimal minPrice,
+                                                    @Param("maxPrice") BigDecimal maxPrice,
+                                                    Pageable pageable);
+    
+    @Query(value = SUMMARY_SELECT + "WHERE p.active = true AND p.productCategory = :category " +
+                   "AND p.effectivePrice BETWEEN :minPrice AND :maxPrice",
+           countQuery = "SELECT COUNT(p) FROM Product p WHERE p.active = true AND p.productCategory = :category " +
+                   "AND p.effectivePrice BETWEEN :minPrice AND :maxPrice")
+    Page<ProductSummary> findActiveSummariesByCategoryAndPrice(@Param("category") String category,
+                                                               @Param("minPrice") BigDecimal minPrice,
+                                                               @Param("maxPrice") BigDecimal maxPrice,
+                                                               Pageable pageable);
+    
+    @Query(SUMMARY_SELECT + "WHERE p.active = true")
+    List<ProductSummary> findAllActiveSummaries();
+    
+    @Query(SUMMARY_SELECT + "WHERE p.active = true AND p.salePrice IS NOT NULL")
+    List<ProductSummary> findSaleSummaries();
+    
+    @Query(SUMMARY_SELECT + "WHERE p.active = true ORDER BY p.createdAt DESC, p.id DESC")
+    List<ProductSummary> findActiveSummariesFirstPage(Pageable limit);
+    
+    @Query(SUMMARY_SELECT + "WHERE p.active = true AND " +
+           "(p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id)) " +
+           "ORDER BY p.createdAt DESC, p.id DESC")
+    List<ProductSummary> findActiveSummariesAfter(@Param("createdAt") LocalDateTime createdAt,
+                                                  @Param("id") Long id,
+                                                  Pageable limit);
+    
+    @Query(value = SUMMARY_SELECT + "WHERE p.active = true AND " +
+           "(:category IS NULL OR :category = '' OR p.productCategory = :category) AND " +
+           "(LOWER(p.name) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
+           "LOWER(p.description) LIKE LOWER(CONCAT('%', :keyword, '%')))",
+           countQuery = "SELECT COUNT(p) FROM Product p WHERE p.active = true AND " +
            "(:category IS NULL OR :category = '' OR p.productCategory = :category) AND " +
            "(LOWER(p.name) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
            "LOWER(p.description) LIKE LOWER(CONCAT('%', :keyword, '%')))")
-    Page<Product> searchProducts(@Param("keyword") String keyword,
-                                 @Param("category") String category,
-                                 Pageable pageable);
+    Page<ProductSummary> searchSummaries(@Param("keyword") String keyword,
+                                         @Param("category") String category,
+                                         Pageable pageable);
 }
 
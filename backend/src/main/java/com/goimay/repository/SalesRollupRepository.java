@@ -0,0 +1,16 @@
+package com.goimay.repository;
+
+import com.goimay.model.RollupGranularity;
+import com.goimay.model.SalesRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface SalesRollupRepository extends JpaRepository<SalesRollup, Long> {
+
+    List<SalesRollup> findByGranularityAndBucketStartGreaterThanEqualAndBucketStartLessThanOrderByBucketStartAsc(
+            RollupGranularity granularity, LocalDateTime from, LocalDateTime to);
+}
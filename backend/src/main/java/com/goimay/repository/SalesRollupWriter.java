@@ -0,0 +1,53 @@
+package com.goimay.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Cộng dồn vào sales_rollups bằng INSERT ... ON DUPLICATE KEY UPDATE (MySQL), cả lô trong một batch.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SalesRollupWriter {
+
+    private static final String UPSERT_SQL = "INSERT INTO sales_rollups " +
+            "(granularity, bucket_start, dimension, dimension_key, order_count, revenue, units, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, NOW()) " +
+            "ON DUPLICATE KEY UPDATE order_count = order_count + VALUES(order_count), " +
+            "revenue = revenue + VALUES(revenue), units = units + VALUES(units), updated_at = NOW()";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Các delta nên được sắp theo khóa ô trước khi gọi, để hai transaction đồng thời khóa dòng cùng thứ tự.
+     */
+    public void addAll(List<Delta> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(UPSERT_SQL, deltas, deltas.size(), (ps, delta) -> {
+            ps.setString(1, delta.granularity());
+            ps.setTimestamp(2, Timestamp.valueOf(delta.bucketStart()));
+            ps.setString(3, delta.dimension());
+            ps.setString(4, delta.dimensionKey());
+            ps.setLong(5, delta.orderCount());
+            ps.setBigDecimal(6, delta.revenue());
+            ps.setLong(7, delta.units());
+        });
+    }
+
+    public record Delta(String granularity,
+                        LocalDateTime bucketStart,
+                        String dimension,
+                        String dimensionKey,
+                        long orderCount,
+                        BigDecimal revenue,
+                        long units) {
+    }
+}
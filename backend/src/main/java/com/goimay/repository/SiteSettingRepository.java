@@ -1,7 +1,9 @@
 package com.goimay.repository;
 
 import com.goimay.model.SiteSetting;
+import com.goimay.repository.projection.ContentStamp;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -12,4 +14,7 @@ public interface SiteSettingRepository extends JpaRepository<SiteSetting, Long>
     Optional<SiteSetting> findBySettingKey(String settingKey);
     List<SiteSetting> findByCategory(String category);
     boolean existsBySettingKey(String settingKey);
+    
+    @Query("SELECT COUNT(s) AS count, MAX(s.updatedAt) AS lastModified FROM SiteSetting s")
+    ContentStamp findContentStamp();
 }
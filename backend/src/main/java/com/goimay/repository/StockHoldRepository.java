@@ -0,0 +1,37 @@
+package com.goimay.repository;
+
+import com.goimay.model.StockHold;
+import com.goimay.repository.projection.HoldDeadline;
+import com.goimay.repository.projection.HoldUsage;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface StockHoldRepository extends JpaRepository<StockHold, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT h FROM StockHold h WHERE h.holdId IN :holdIds ORDER BY h.id")
+    List<StockHold> findByHoldIdInForUpdate(@Param("holdIds") Collection<String> holdIds);
+
+    @Modifying
+    @Query("DELETE FROM StockHold h WHERE h.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    /** Hạn chót của từng phiên còn trong bảng, để xếp lại lên bánh xe khi khởi động. */
+    @Query("SELECT h.holdId AS holdId, MAX(h.expiresAt) AS expiresAt FROM StockHold h GROUP BY h.holdId")
+    List<HoldDeadline> findDeadlines();
+
+    /** Số phiên và tổng số lượng một khách đang giữ (chưa hết hạn). */
+    @Query("SELECT COUNT(DISTINCT h.holdId) AS holds, COALESCE(SUM(h.quantity), 0) AS quantity " +
+           "FROM StockHold h WHERE h.userId = :userId AND h.expiresAt > :now")
+    HoldUsage findUsage(@Param("userId") Long userId, @Param("now") LocalDateTime now);
+}
@@ -1,7 +1,11 @@
 package com.goimay.repository;
 
 import com.goimay.model.User;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -11,6 +15,11 @@ public interface UserRepository extends JpaRepository<User, Long> {
     
     Optional<User> findByEmail(String email);
     
+    /** Khóa dòng user để các thao tác giới hạn theo khách (vd. số phiên giữ hàng) không chạy chen nhau. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT u FROM User u WHERE u.email = :email")
+    Optional<User> findByEmailForUpdate(@Param("email") String email);
+    
     Optional<User> findByGoogleId(String googleId);
     
     boolean existsByEmail(String email);
@@ -0,0 +1,7 @@
+package com.goimay.repository.projection;
+
+public interface ArticleTitle {
+    Long getId();
+    String getTitle();
+    String getSlug();
+}
@@ -0,0 +1,11 @@
+package com.goimay.repository.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * (số bản ghi, updatedAt lớn nhất) của một bảng — đổi khi có thêm/sửa/xóa bản ghi.
+ */
+public interface ContentStamp {
+    Long getCount();
+    LocalDateTime getLastModified();
+}
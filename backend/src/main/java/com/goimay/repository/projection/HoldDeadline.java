@@ -0,0 +1,8 @@
+package com.goimay.repository.projection;
+
+import java.time.LocalDateTime;
+
+public interface HoldDeadline {
+    String getHoldId();
+    LocalDateTime getExpiresAt();
+}
@@ -0,0 +1,6 @@
+package com.goimay.repository.projection;
+
+public interface HoldUsage {
+    long getHolds();
+    Long getQuantity();
+}
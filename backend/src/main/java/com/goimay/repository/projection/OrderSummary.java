@@ -0,0 +1,22 @@
+package com.goimay.repository.projection;
+
+import com.goimay.model.OrderStatus;
+import com.goimay.model.PaymentMethod;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Một dòng trong danh sách đơn của admin: chỉ đọc bảng orders, không nạp order_items.
+ */
+public interface OrderSummary {
+    String getId();
+    String getFullName();
+    String getPhone();
+    String getEmail();
+    BigDecimal getTotal();
+    OrderStatus getStatus();
+    PaymentMethod getPaymentMethod();
+    Integer getItemCount();
+    LocalDateTime getCreatedAt();
+}
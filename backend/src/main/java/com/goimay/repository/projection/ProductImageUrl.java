@@ -0,0 +1,9 @@
+package com.goimay.repository.projection;
+
+/**
+ * Projection (product id, url) dùng để nạp ảnh cho nhiều sản phẩm trong một truy vấn.
+ */
+public interface ProductImageUrl {
+    Long getProductId();
+    String getUrl();
+}
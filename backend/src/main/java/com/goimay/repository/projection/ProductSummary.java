@@ -0,0 +1,18 @@
+package com.goimay.repository.projection;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Các cột tối thiểu cho lưới sản phẩm; không đọc description (TEXT) và không chạm tới product_images.
+ */
+public interface ProductSummary {
+    Long getId();
+    String getName();
+    String getSlug();
+    BigDecimal getPrice();
+    BigDecimal getSalePrice();
+    String getThumbnail();
+    String getProductCategory();
+    LocalDateTime getCreatedAt();
+}
@@ -0,0 +1,189 @@
+package com.goimay.scheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bánh xe thời gian nhiều tầng cho rất nhiều hạn chót (vd. hàng chục nghìn phiên giữ hàng).
+ * Thêm/hủy O(1), mỗi tick chỉ chạm một ô; phần tử ở tầng cao được dời xuống tầng thấp khi ô của nó tới lượt,
+ * nên không cần một task hẹn giờ cho mỗi phần tử và cũng không phải quét DB.
+ * <p>
+ * Thời điểm được đổi ra số tick (làm tròn lên), viết theo cơ số 2^slotBits: tầng i giữ các phần tử mà chữ số
+ * cao nhất khác với tick hiện tại là chữ số thứ i. Hạn chót vượt quá tầm của tầng cao nhất nằm trong danh sách
+ * tràn và được xếp lại mỗi khi tầng cao nhất quay hết một vòng.
+ * <p>
+ * Không tự chạy: người dùng gọi {@link #advance(long)} định kỳ và xử lý các payload đã hết hạn được trả về
+ * (ngoài khóa). Hết hạn có thể trễ tối đa một tick + chu kỳ gọi advance, không bao giờ sớm.
+ */
+public final class HierarchicalTimingWheel<T> {
+
+    private final long tickMillis;
+    private final int slotBits;
+    private final int slotMask;
+    private final Entry<T>[][] levels;
+    private final List<Entry<T>> overflow = new ArrayList<>();
+
+    private long currentTick;
+    private int size;
+
+    /**
+     * @param tickMillis độ phân giải
+     * @param slotBits   log2 số ô mỗi tầng (vd. 6 → 64 ô)
+     * @param levelCount số tầng; tầm phủ = tick × 2^(slotBits × levelCount)
+     * @param startMillis thời điểm bắt đầu (thường là System.currentTimeMillis())
+     */
+    @SuppressWarnings("unchecked")
+    public HierarchicalTimingWheel(long tickMillis, int slotBits, int levelCount, long startMillis) {
+        if (tickMillis <= 0 || slotBits <= 0 || levelCount <= 0 || slotBits * levelCount >= 62) {
+            throw new IllegalArgumentException("Invalid timing wheel shape");
+        }
+        this.tickMillis = tickMillis;
+        this.slotBits = slotBits;
+        this.slotMask = (1 << slotBits) - 1;
+        this.levels = new Entry[levelCount][1 << slotBits];
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * Hẹn payload hết hạn tại deadlineMillis. Hạn chót đã qua sẽ được trả về ở lần advance kế tiếp.
+     */
+    public synchronized Timeout<T> schedule(T payload, long deadlineMillis) {
+        long deadlineTick = Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis);
+        Entry<T> entry = new Entry<>(this, payload, deadlineTick);
+        place(entry);
+        size++;
+        return entry;
+    }
+
+    /**
+     * Đưa đồng hồ tới nowMillis và trả về payload của mọi phần tử đã hết hạn (chưa bị hủy), theo thứ tự tick.
+     */
+    public synchronized List<T> advance(long nowMillis) {
+        List<T> expired = new ArrayList<>();
+        long targetTick = nowMillis / tickMillis;
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade(expired);
+        }
+        return expired;
+    }
+
+    /**
+     * Số phần tử đang chờ (kể cả phần tử đã hủy nhưng chưa tới ô của nó).
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    public long tickMillis() {
+        return tickMillis;
+    }
+
+    /**
+     * Dời các ô tới lượt ở mỗi tầng, từ cao xuống thấp, để phần tử rơi xuống ô hiện tại của tầng 0 được xử lý ngay trong tick này.
+     */
+    private void cascade(List<T> expired) {
+        int top = levels.length - 1;
+        if ((currentTick & ((1L << (slotBits * levels.length)) - 1)) == 0 && !overflow.isEmpty()) {
+            List<Entry<T>> pending = new ArrayList<>(overflow);
+            overflow.clear();
+            for (Entry<T> entry : pending) {
+                replace(entry, expired);
+            }
+        }
+        for (int level = top; level >= 0; level--) {
+            long lowerDigitsMask = (1L << (slotBits * level)) - 1;
+            if ((currentTick & lowerDigitsMask) != 0) {
+                continue;
+            }
+            int slot = (int) (currentTick >>> (slotBits * level)) & slotMask;
+            Entry<T> entry = levels[level][slot];
+            levels[level][slot] = null;
+            while (entry != null) {
+                Entry<T> next = entry.next;
+                entry.next = null;
+                replace(entry, expired);
+                entry = next;
+            }
+        }
+    }
+
+    private void replace(Entry<T> entry, List<T> expired) {
+        if (entry.cancelled) {
+            size--;
+        } else if (entry.deadlineTick <= currentTick) {
+            entry.cancelled = true;
+            size--;
+            expired.add(entry.payload);
+        } else {
+            place(entry);
+        }
+    }
+
+    private void place(Entry<T> entry) {
+        if (entry.deadlineTick <= currentTick) {
+            // Đã quá hạn: để vào ô của tick kế tiếp ở tầng 0.
+            int slot = (int) (currentTick + 1) & slotMask;
+            push(0, slot, entry);
+            return;
+        }
+        long differing = entry.deadlineTick ^ currentTick;
+        for (int level = 0; level < levels.length; level++) {
+            if ((differing >>> (slotBits * (level + 1))) == 0) {
+                int slot = (int) (entry.deadlineTick >>> (slotBits * level)) & slotMask;
+                push(level, slot, entry);
+                return;
+            }
+        }
+        overflow.add(entry);
+    }
+
+    private void push(int level, int slot, Entry<T> entry) {
+        entry.next = levels[level][slot];
+        levels[level][slot] = entry;
+    }
+
+    /**
+     * Tay cầm để hủy một hạn chót; phần tử bị hủy được gỡ khỏi bánh xe khi ô của nó tới lượt.
+     */
+    public interface Timeout<T> {
+
+        T payload();
+
+        /**
+         * @return true nếu hủy được (chưa hết hạn, chưa bị hủy trước đó)
+         */
+        boolean cancel();
+    }
+
+    private static final class Entry<P> implements Timeout<P> {
+
+        private final Object lock;
+        private final P payload;
+        private final long deadlineTick;
+        private Entry<P> next;
+        private boolean cancelled;
+
+        Entry(Object lock, P payload, long deadlineTick) {
+            this.lock = lock;
+            this.payload = payload;
+            this.deadlineTick = deadlineTick;
+        }
+
+        @Override
+        public P payload() {
+            return payload;
+        }
+
+        @Override
+        public boolean cancel() {
+            synchronized (lock) {
+                if (cancelled) {
+                    return false;
+                }
+                cancelled = true;
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.goimay.scheduler;
+
+import com.goimay.service.OrderArchiveService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Chạy hằng đêm: lưu trữ đơn đã kết thúc cũ hơn app.orders.archive.min-age-days, từng lô nhỏ.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrderArchiveScheduler {
+
+    private final OrderArchiveService orderArchiveService;
+
+    @Value("${app.orders.archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.orders.archive.min-age-days:365}")
+    private int minAgeDays;
+
+    @Value("${app.orders.archive.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${app.orders.archive.max-chunks-per-run:200}")
+    private int maxChunksPerRun;
+
+    @Scheduled(cron = "${app.orders.archive.cron:0 30 3 * * *}")
+    public void archiveOldOrders() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(minAgeDays);
+        long start = System.currentTimeMillis();
+        int total = 0;
+        try {
+            for (int chunk = 0; chunk < maxChunksPerRun; chunk++) {
+                int moved = orderArchiveService.archiveChunk(cutoff, chunkSize);
+                total += moved;
+                if (moved < chunkSize) {
+                    break;
+                }
+            }
+        } catch (Exception e) {
+            log.error("Order archiving stopped after {} orders: {}", total, e.getMessage());
+        }
+        if (total > 0) {
+            log.info("Archived {} orders created before {} in {} ms", total, cutoff, System.currentTimeMillis() - start);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.goimay.scheduler;
+
+import com.goimay.service.StockHoldService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Quay bánh xe thời gian của phiên giữ hàng mỗi tick và trả tồn kho cho các phiên hết hạn theo lô.
+ * Lô lỗi được xếp lại lên bánh xe (StockHoldService.retryLater) thay vì chờ tới lần khởi động sau.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StockHoldExpiryScheduler {
+
+    private final StockHoldService stockHoldService;
+
+    @Value("${app.holds.release-batch-size:200}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${app.holds.tick-ms:1000}")
+    public void releaseExpiredHolds() {
+        List<String> expired = stockHoldService.pollExpired();
+        int released = 0;
+        for (int from = 0; from < expired.size(); from += batchSize) {
+            List<String> batch = expired.subList(from, Math.min(from + batchSize, expired.size()));
+            try {
+                released += stockHoldService.releaseExpired(batch);
+            } catch (Exception e) {
+                log.error("Could not release {} expired stock holds, retrying later: {}", batch.size(), e.getMessage());
+                stockHoldService.retryLater(batch);
+            }
+        }
+        if (released > 0) {
+            log.info("Released {} expired stock holds", released);
+        }
+    }
+}
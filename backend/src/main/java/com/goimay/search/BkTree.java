@@ -0,0 +1,149 @@
+package com.goimay.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * BK-tree bất biến trên từ vựng đã bỏ dấu, dùng khoảng cách Levenshtein để tìm từ gần đúng.
+ * Nhờ bất đẳng thức tam giác, mỗi lần tra chỉ duyệt các nhánh có khoảng cách trong [d - max, d + max].
+ */
+public final class BkTree {
+
+    /** Từ dài hơn mức này không sửa lỗi, để giới hạn chi phí tính khoảng cách. */
+    private static final int MAX_TERM_LENGTH = 32;
+
+    private final Node root;
+    private final int size;
+
+    private BkTree(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    public static BkTree of(Collection<String> terms) {
+        Node root = null;
+        int size = 0;
+        for (String term : terms) {
+            if (term.isEmpty() || term.length() > MAX_TERM_LENGTH) {
+                continue;
+            }
+            if (root == null) {
+                root = new Node(term);
+                size++;
+            } else if (root.insert(term)) {
+                size++;
+            }
+        }
+        return new BkTree(root, size);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return các từ có khoảng cách tới term không quá maxDistance (không theo thứ tự nào).
+     */
+    public List<Match> search(String term, int maxDistance) {
+        List<Match> matches = new ArrayList<>();
+        if (root == null || term.isEmpty() || term.length() > MAX_TERM_LENGTH) {
+            return matches;
+        }
+        List<Node> stack = new ArrayList<>();
+        stack.add(root);
+        while (!stack.isEmpty()) {
+            Node node = stack.remove(stack.size() - 1);
+            int distance = distance(term, node.term, maxDistance);
+            if (distance <= maxDistance) {
+                matches.add(new Match(node.term, distance));
+            }
+            for (int i = 0; i < node.edges.length; i++) {
+                if (Math.abs(node.edges[i] - distance) <= maxDistance) {
+                    stack.add(node.children[i]);
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Levenshtein hai hàng; dừng sớm và trả về limit + 1 khi chắc chắn vượt limit.
+     */
+    static int distance(String a, String b, int limit) {
+        if (Math.abs(a.length() - b.length()) > limit) {
+            return limit + 1;
+        }
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > limit) {
+                return limit + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    public record Match(String term, int distance) {
+    }
+
+    private static final class Node {
+
+        private final String term;
+        private int[] edges = new int[0];
+        private Node[] children = new Node[0];
+
+        Node(String term) {
+            this.term = term;
+        }
+
+        /**
+         * @return false nếu term đã có trong cây.
+         */
+        boolean insert(String term) {
+            Node node = this;
+            while (true) {
+                int distance = distance(term, node.term, Integer.MAX_VALUE - 1);
+                if (distance == 0) {
+                    return false;
+                }
+                Node next = node.child(distance);
+                if (next == null) {
+                    node.addChild(distance, new Node(term));
+                    return true;
+                }
+                node = next;
+            }
+        }
+
+        Node child(int distance) {
+            for (int i = 0; i < edges.length; i++) {
+                if (edges[i] == distance) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        void addChild(int distance, Node child) {
+            edges = Arrays.copyOf(edges, edges.length + 1);
+            children = Arrays.copyOf(children, children.length + 1);
+            edges[edges.length - 1] = distance;
+            children[children.length - 1] = child;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.goimay.search;
+
+import com.goimay.dto.SuggestionDTO;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Trie tiền tố bất biến cho gợi ý khi gõ. Khóa là tiêu đề đã bỏ dấu, được chèn từ đầu mỗi từ
+ * nên "tet" cũng gợi ý "Set quà Tết". Mỗi nút giữ sẵn top-N kết quả nên tra cứu chỉ tốn O(độ dài tiền tố).
+ * Con của mỗi nút lưu bằng mảng ký tự đã sắp xếp thay cho HashMap để gọn bộ nhớ.
+ */
+public final class PrefixTrie {
+
+    private static final Comparator<Entry> RANKING = Comparator
+            .comparingInt(Entry::wordPosition)
+            .thenComparingInt(Entry::titleLength)
+            .thenComparing(Entry::foldedTitle);
+
+    private final Node root;
+
+    private PrefixTrie(Node root) {
+        this.root = root;
+    }
+
+    public static Builder builder(int maxPerNode) {
+        return new Builder(maxPerNode);
+    }
+
+    public List<SuggestionDTO> lookup(String prefix, int limit) {
+        String key = String.join(" ", TextNormalizer.tokenize(prefix));
+        if (key.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i));
+        }
+        if (node == null) {
+            return List.of();
+        }
+        List<SuggestionDTO> result = new ArrayList<>(Math.min(limit, node.top.size()));
+        for (int i = 0; i < node.top.size() && i < limit; i++) {
+            result.add(node.top.get(i).suggestion());
+        }
+        return result;
+    }
+
+    public static final class Builder {
+
+        private final int maxPerNode;
+        private final Node root = new Node();
+
+        private Builder(int maxPerNode) {
+            this.maxPerNode = maxPerNode;
+        }
+
+        public Builder add(Long id, String title, String slug) {
+            List<String> tokens = TextNormalizer.tokenize(title);
+            if (tokens.isEmpty()) {
+                return this;
+            }
+            String folded = String.join(" ", tokens);
+            SuggestionDTO suggestion = new SuggestionDTO(id, title, slug);
+            int start = 0;
+            for (int position = 0; position < tokens.size(); position++) {
+                Entry entry = new Entry(suggestion, position, folded.length(), folded);
+                Node node = root;
+                for (int i = start; i < folded.length(); i++) {
+                    node = node.getOrCreate(folded.charAt(i));
+                    node.offer(entry, maxPerNode);
+                }
+                start += tokens.get(position).length() + 1;
+            }
+            return this;
+        }
+
+        public PrefixTrie build() {
+            return new PrefixTrie(root);
+        }
+    }
+
+    private record Entry(SuggestionDTO suggestion, int wordPosition, int titleLength, String foldedTitle) {
+    }
+
+    private static final class Node {
+
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        private final List<Entry> top = new ArrayList<>(1);
+
+        Node child(char c) {
+            int idx = Arrays.binarySearch(keys, c);
+            return idx >= 0 ? children[idx] : null;
+        }
+
+        Node getOrCreate(char c) {
+            int idx = Arrays.binarySearch(keys, c);
+            if (idx >= 0) {
+                return children[idx];
+            }
+            int insertAt = -idx - 1;
+            Node created = new Node();
+            char[] newKeys = new char[keys.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, insertAt);
+            System.arraycopy(children, 0, newChildren, 0, insertAt);
+            newKeys[insertAt] = c;
+            newChildren[insertAt] = created;
+            System.arraycopy(keys, insertAt, newKeys, insertAt + 1, keys.length - insertAt);
+            System.arraycopy(children, insertAt, newChildren, insertAt + 1, children.length - insertAt);
+            keys = newKeys;
+            children = newChildren;
+            return created;
+        }
+
+        /**
+         * Giữ tối đa max mục tốt nhất, mỗi tiêu đề (id) chỉ một lần ở vị trí tốt nhất của nó.
+         */
+        void offer(Entry entry, int max) {
+            for (int i = 0; i < top.size(); i++) {
+                Entry existing = top.get(i);
+                if (existing.suggestion().getId().equals(entry.suggestion().getId())) {
+                    if (RANKING.compare(entry, existing) >= 0) {
+                        return;
+                    }
+                    top.remove(i);
+                    break;
+                }
+            }
+            int pos = 0;
+            while (pos < top.size() && RANKING.compare(top.get(pos), entry) <= 0) {
+                pos++;
+            }
+            if (pos >= max) {
+                return;
+            }
+            top.add(pos, entry);
+            if (top.size() > max) {
+                top.remove(top.size() - 1);
+            }
+        }
+    }
+}
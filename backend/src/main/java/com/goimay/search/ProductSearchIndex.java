@@ -0,0 +1,475 @@
+package com.goimay.search;
+
+import com.goimay.dto.ProductFacetsDTO;
+import com.goimay.dto.ProductListItemDTO;
+import com.goimay.model.Product;
+import com.goimay.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Chỉ mục đảo ngược trong bộ nhớ cho sản phẩm đang bán (tên, mô tả, danh mục), xếp hạng BM25.
+ * Văn bản được bỏ dấu trước khi tách từ nên "qua tet" khớp "quà Tết"; từ cuối của truy vấn khớp theo tiền tố.
+ * <p>
+ * Dựng toàn bộ khi ứng dụng sẵn sàng, cập nhật từng sản phẩm khi ProductService ghi,
+ * và dựng lại định kỳ để nhận thay đổi từ instance khác.
+ * <p>
+ * Facet (số sản phẩm theo danh mục và theo khoảng giá hiệu lực) được đếm trên một snapshot dạng cột
+ * (mảng ordinal danh mục + mảng ordinal khoảng giá), dựng lại sau mỗi lần ghi, nên mỗi truy vấn
+ * chỉ tốn O(số kết quả khớp) và hai mảng đếm nhỏ, không cần GROUP BY xuống DB.
+ * <p>
+ * Khi không có kết quả, {@link #correct(String)} sửa lỗi chính tả từng từ bằng BK-tree trên từ vựng của chỉ mục.
+ * Cây được dựng lười một lần cho mỗi phiên bản catalog (mỗi lần chỉ mục thay đổi).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSearchIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int NAME_WEIGHT = 3;
+    private static final int CATEGORY_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    /** Cận trên (không gồm) của các khoảng giá hiệu lực, VND; khoảng cuối không giới hạn trên. */
+    private static final long[] PRICE_BUCKET_BOUNDS = {300_000L, 500_000L, 800_000L, 1_200_000L};
+
+    /** Truy vấn dài hơn số từ này không sửa lỗi chính tả. */
+    private static final int MAX_CORRECTED_TERMS = 8;
+
+    private final ProductRepository productRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Map<Long, Doc> docs = new HashMap<>();
+    private TreeMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+    private long totalLength;
+    private FacetColumns facetColumns = FacetColumns.EMPTY;
+    private volatile boolean ready;
+
+    /** Phiên bản catalog, tăng (dưới write lock) mỗi lần chỉ mục thay đổi. */
+    private volatile long version;
+    private volatile Vocabulary vocabulary;
+
+    /** Đếm số lần ghi lẻ, để biết có ghi nào chen vào trong lúc đang dựng lại toàn bộ hay không. */
+    private final AtomicLong writes = new AtomicLong();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${app.search.rebuild-interval-ms:600000}",
+               fixedDelayString = "${app.search.rebuild-interval-ms:600000}")
+    public void rebuild() {
+        for (int attempt = 0; attempt < 3; attempt++) {
+            long writesAtStart = writes.get();
+            buildAndSwap();
+            if (writes.get() == writesAtStart) {
+                return;
+            }
+        }
+    }
+
+    private void buildAndSwap() {
+        long start = System.nanoTime();
+        Map<Long, Doc> newDocs = new HashMap<>();
+        TreeMap<String, Map<Long, Integer>> newPostings = new TreeMap<>();
+        long newTotalLength = 0;
+        for (Product product : productRepository.findAll()) {
+            if (!product.isActive()) {
+                continue;
+            }
+            Doc doc = toDoc(product);
+            newDocs.put(doc.id(), doc);
+            newTotalLength += doc.length();
+            addPostings(newPostings, doc);
+        }
+
+        lock.writeLock().lock();
+        try {
+            docs = newDocs;
+            postings = newPostings;
+            totalLength = newTotalLength;
+            facetColumns = FacetColumns.of(newDocs);
+            version++;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Product search index built: {} products, {} terms in {} ms",
+                newDocs.size(), newPostings.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void upsert(Product product) {
+        if (!product.isActive()) {
+            remove(product.getId());
+            return;
+        }
+        Doc doc = toDoc(product);
+        writes.incrementAndGet();
+        lock.writeLock().lock();
+        try {
+            removeLocked(doc.id());
+            docs.put(doc.id(), doc);
+            totalLength += doc.length();
+            addPostings(postings, doc);
+            facetColumns = FacetColumns.of(docs);
+            version++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        writes.incrementAndGet();
+        lock.writeLock().lock();
+        try {
+            if (removeLocked(productId)) {
+                facetColumns = FacetColumns.of(docs);
+                version++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return sản phẩm khớp mọi từ của truy vấn, điểm BM25 giảm dần (hòa điểm thì mới hơn trước).
+     * Truy vấn rỗng trả về tất cả sản phẩm (trong danh mục nếu có), mới nhất trước.
+     * Facet danh mục đếm trên mọi sản phẩm khớp từ khóa (bỏ qua bộ lọc danh mục, để còn chuyển sang danh mục khác);
+     * facet giá đếm trên đúng tập kết quả trả về.
+     */
+    public ProductSearchResult search(String query, String category) {
+        List<String> terms = TextNormalizer.tokenize(query);
+        String categoryFilter = (category == null || category.isEmpty()) ? null : category;
+
+        lock.readLock().lock();
+        try {
+            Map<Long, Double> scores;
+            if (terms.isEmpty()) {
+                scores = new HashMap<>();
+                for (Long id : docs.keySet()) {
+                    scores.put(id, 0d);
+                }
+            } else {
+                scores = null;
+                for (int i = 0; i < terms.size(); i++) {
+                    Map<Long, Double> termScores = scoreTerm(terms.get(i), i == terms.size() - 1);
+                    if (scores == null) {
+                        scores = termScores;
+                    } else {
+                        scores.keySet().retainAll(termScores.keySet());
+                        scores.replaceAll((id, score) -> score + termScores.get(id));
+                    }
+                    if (scores.isEmpty()) {
+                        break;
+                    }
+                }
+            }
+
+            FacetColumns columns = facetColumns;
+            int[] categoryCounts = new int[columns.categories.length];
+            int[] priceCounts = new int[PRICE_BUCKET_BOUNDS.length + 1];
+            int filterOrdinal = categoryFilter == null ? -1 : Arrays.binarySearch(columns.categories, categoryFilter);
+            List<Map.Entry<Long, Double>> ranked = new ArrayList<>();
+            for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+                int row = columns.rowById.get(entry.getKey());
+                int categoryOrdinal = columns.categoryOrdinals[row];
+                if (categoryOrdinal >= 0) {
+                    categoryCounts[categoryOrdinal]++;
+                }
+                if (categoryFilter == null || (filterOrdinal >= 0 && categoryOrdinal == filterOrdinal)) {
+                    priceCounts[columns.priceBuckets[row]]++;
+                    ranked.add(entry);
+                }
+            }
+            ranked.sort(Comparator.<Map.Entry<Long, Double>>comparingDouble(Map.Entry::getValue).reversed()
+                    .thenComparing(e -> docs.get(e.getKey()).createdAt(), Comparator.reverseOrder()));
+
+            List<ProductListItemDTO> result = new ArrayList<>(ranked.size());
+            for (Map.Entry<Long, Double> entry : ranked) {
+                result.add(docs.get(entry.getKey()).item());
+            }
+            return new ProductSearchResult(result, toFacets(columns, categoryCounts, priceCounts));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Sửa lỗi chính tả cho truy vấn: từ nào không có trong từ vựng (từ cuối xét theo tiền tố) được thay bằng
+     * từ gần nhất theo Levenshtein (tối đa 1 lỗi với từ 3-5 ký tự, 2 lỗi với từ dài hơn), hòa thì chọn từ phổ biến hơn.
+     *
+     * @return truy vấn đã sửa (dạng bỏ dấu), hoặc null nếu không cần/không thể sửa.
+     */
+    public String correct(String query) {
+        List<String> terms = TextNormalizer.tokenize(query);
+        if (terms.isEmpty() || terms.size() > MAX_CORRECTED_TERMS) {
+            return null;
+        }
+        BkTree tree = vocabularyTree();
+
+        lock.readLock().lock();
+        try {
+            List<String> corrected = new ArrayList<>(terms.size());
+            boolean changed = false;
+            for (int i = 0; i < terms.size(); i++) {
+                String term = terms.get(i);
+                boolean prefix = i == terms.size() - 1;
+                if (prefix ? hasPrefix(term) : postings.containsKey(term)) {
+                    corrected.add(term);
+                    continue;
+                }
+                String replacement = closestTerm(tree, term);
+                if (replacement == null) {
+                    return null;
+                }
+                corrected.add(replacement);
+                changed = true;
+            }
+            return changed ? String.join(" ", corrected) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean hasPrefix(String term) {
+        String ceiling = postings.ceilingKey(term);
+        return ceiling != null && ceiling.startsWith(term);
+    }
+
+    private String closestTerm(BkTree tree, String term) {
+        int maxDistance = term.length() < 3 ? 0 : term.length() <= 5 ? 1 : 2;
+        if (maxDistance == 0) {
+            return null;
+        }
+        String best = null;
+        int bestDistance = Integer.MAX_VALUE;
+        int bestFrequency = -1;
+        for (BkTree.Match match : tree.search(term, maxDistance)) {
+            Map<Long, Integer> postingList = postings.get(match.term());
+            int frequency = postingList == null ? 0 : postingList.size();
+            if (frequency == 0) {
+                continue;
+            }
+            if (match.distance() < bestDistance
+                    || (match.distance() == bestDistance && frequency > bestFrequency)
+                    || (match.distance() == bestDistance && frequency == bestFrequency && match.term().compareTo(best) < 0)) {
+                best = match.term();
+                bestDistance = match.distance();
+                bestFrequency = frequency;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * BK-tree của phiên bản catalog hiện tại; chỉ dựng lại khi phiên bản đã đổi.
+     */
+    private BkTree vocabularyTree() {
+        Vocabulary current = vocabulary;
+        if (current != null && current.version() == version) {
+            return current.tree();
+        }
+        synchronized (this) {
+            List<String> terms;
+            long snapshotVersion;
+            lock.readLock().lock();
+            try {
+                snapshotVersion = version;
+                current = vocabulary;
+                if (current != null && current.version() == snapshotVersion) {
+                    return current.tree();
+                }
+                terms = new ArrayList<>(postings.keySet());
+            } finally {
+                lock.readLock().unlock();
+            }
+            BkTree tree = BkTree.of(terms);
+            vocabulary = new Vocabulary(snapshotVersion, tree);
+            log.debug("Search vocabulary BK-tree built: {} terms (catalog version {})", tree.size(), snapshotVersion);
+            return tree;
+        }
+    }
+
+    private Map<Long, Double> scoreTerm(String term, boolean prefix) {
+        NavigableMap<String, Map<Long, Integer>> matched = prefix
+                ? postings.subMap(term, true, term + Character.MAX_VALUE, false)
+                : postings.subMap(term, true, term, true);
+        Map<Long, Double> scores = new HashMap<>();
+        int n = docs.size();
+        double avgLength = n == 0 ? 1d : (double) totalLength / n;
+        for (Map<Long, Integer> postingList : matched.values()) {
+            int df = postingList.size();
+            double idf = Math.log(1 + (n - df + 0.5) / (df + 0.5));
+            for (Map.Entry<Long, Integer> posting : postingList.entrySet()) {
+                int tf = posting.getValue();
+                int length = docs.get(posting.getKey()).length();
+                double score = idf * tf * (K1 + 1) / (tf + K1 * (1 - B + B * length / avgLength));
+                scores.merge(posting.getKey(), score, Double::sum);
+            }
+        }
+        return scores;
+    }
+
+    private static ProductFacetsDTO toFacets(FacetColumns columns, int[] categoryCounts, int[] priceCounts) {
+        List<ProductFacetsDTO.CategoryCount> categories = new ArrayList<>();
+        for (int i = 0; i < categoryCounts.length; i++) {
+            if (categoryCounts[i] > 0) {
+                categories.add(new ProductFacetsDTO.CategoryCount(columns.categories[i], categoryCounts[i]));
+            }
+        }
+        categories.sort(Comparator.comparingLong(ProductFacetsDTO.CategoryCount::getCount).reversed()
+                .thenComparing(ProductFacetsDTO.CategoryCount::getCategory));
+
+        List<ProductFacetsDTO.PriceBucket> priceBuckets = new ArrayList<>(priceCounts.length);
+        for (int i = 0; i < priceCounts.length; i++) {
+            BigDecimal min = i == 0 ? BigDecimal.ZERO : BigDecimal.valueOf(PRICE_BUCKET_BOUNDS[i - 1]);
+            BigDecimal max = i < PRICE_BUCKET_BOUNDS.length ? BigDecimal.valueOf(PRICE_BUCKET_BOUNDS[i]) : null;
+            priceBuckets.add(new ProductFacetsDTO.PriceBucket(min, max, priceCounts[i]));
+        }
+        return new ProductFacetsDTO(categories, priceBuckets);
+    }
+
+    private static int priceBucket(long effectivePrice) {
+        int bucket = 0;
+        while (bucket < PRICE_BUCKET_BOUNDS.length && effectivePrice >= PRICE_BUCKET_BOUNDS[bucket]) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    private boolean removeLocked(Long productId) {
+        Doc previous = docs.remove(productId);
+        if (previous == null) {
+            return false;
+        }
+        totalLength -= previous.length();
+        for (String term : previous.termFrequencies().keySet()) {
+            Map<Long, Integer> postingList = postings.get(term);
+            if (postingList != null) {
+                postingList.remove(productId);
+                if (postingList.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        return true;
+    }
+
+    private static void addPostings(TreeMap<String, Map<Long, Integer>> target, Doc doc) {
+        for (Map.Entry<String, Integer> entry : doc.termFrequencies().entrySet()) {
+            target.computeIfAbsent(entry.getKey(), k -> new HashMap<>()).put(doc.id(), entry.getValue());
+        }
+    }
+
+    private static Doc toDoc(Product product) {
+        Map<String, Integer> tf = new HashMap<>();
+        int length = 0;
+        length += addTerms(tf, product.getName(), NAME_WEIGHT);
+        length += addTerms(tf, product.getProductCategory(), CATEGORY_WEIGHT);
+        length += addTerms(tf, product.getDescription(), DESCRIPTION_WEIGHT);
+
+        ProductListItemDTO item = new ProductListItemDTO(
+                product.getId(),
+                product.getName(),
+                product.getSlug(),
+                product.getPrice(),
+                product.getSalePrice(),
+                product.getThumbnail(),
+                product.getProductCategory()
+        );
+        long createdAt = product.getCreatedAt() != null
+                ? product.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : 0L;
+        BigDecimal effectivePrice = product.getSalePrice() != null ? product.getSalePrice() : product.getPrice();
+        return new Doc(product.getId(), item, product.getProductCategory(), createdAt,
+                effectivePrice != null ? effectivePrice.longValue() : 0L, Math.max(length, 1), tf);
+    }
+
+    private static int addTerms(Map<String, Integer> tf, String text, int weight) {
+        List<String> tokens = TextNormalizer.tokenize(text);
+        for (String token : tokens) {
+            tf.merge(token, weight, Integer::sum);
+        }
+        return tokens.size() * weight;
+    }
+
+    private record Vocabulary(long version, BkTree tree) {
+    }
+
+    private record Doc(Long id,
+                       ProductListItemDTO item,
+                       String category,
+                       long createdAt,
+                       long effectivePrice,
+                       int length,
+                       Map<String, Integer> termFrequencies) {
+    }
+
+    /**
+     * Snapshot dạng cột của các sản phẩm đang bán, chỉ đọc sau khi dựng: dòng i ứng với một sản phẩm,
+     * categoryOrdinals[i] trỏ vào categories (-1 nếu không có danh mục), priceBuckets[i] là khoảng giá đã tính sẵn.
+     */
+    private static final class FacetColumns {
+
+        static final FacetColumns EMPTY = new FacetColumns(Map.of(), new int[0], new int[0], new String[0]);
+
+        final Map<Long, Integer> rowById;
+        final int[] categoryOrdinals;
+        final int[] priceBuckets;
+        final String[] categories;
+
+        private FacetColumns(Map<Long, Integer> rowById, int[] categoryOrdinals, int[] priceBuckets, String[] categories) {
+            this.rowById = rowById;
+            this.categoryOrdinals = categoryOrdinals;
+            this.priceBuckets = priceBuckets;
+            this.categories = categories;
+        }
+
+        static FacetColumns of(Map<Long, Doc> docs) {
+            TreeSet<String> names = new TreeSet<>();
+            for (Doc doc : docs.values()) {
+                if (doc.category() != null && !doc.category().isEmpty()) {
+                    names.add(doc.category());
+                }
+            }
+            String[] categories = names.toArray(new String[0]);
+            Map<String, Integer> ordinalByName = new HashMap<>(categories.length * 2);
+            for (int i = 0; i < categories.length; i++) {
+                ordinalByName.put(categories[i], i);
+            }
+
+            Map<Long, Integer> rowById = new HashMap<>(docs.size() * 2);
+            int[] categoryOrdinals = new int[docs.size()];
+            int[] priceBuckets = new int[docs.size()];
+            int row = 0;
+            for (Doc doc : docs.values()) {
+                rowById.put(doc.id(), row);
+                categoryOrdinals[row] = doc.category() != null ? ordinalByName.getOrDefault(doc.category(), -1) : -1;
+                priceBuckets[row] = priceBucket(doc.effectivePrice());
+                row++;
+            }
+            return new FacetColumns(rowById, categoryOrdinals, priceBuckets, categories);
+        }
+    }
+}
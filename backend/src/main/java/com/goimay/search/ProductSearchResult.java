@@ -0,0 +1,9 @@
+package com.goimay.search;
+
+import com.goimay.dto.ProductFacetsDTO;
+import com.goimay.dto.ProductListItemDTO;
+
+import java.util.List;
+
+public record ProductSearchResult(List<ProductListItemDTO> hits, ProductFacetsDTO facets) {
+}
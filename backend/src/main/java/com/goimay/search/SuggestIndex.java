@@ -0,0 +1,80 @@
+package com.goimay.search;
+
+import com.goimay.dto.SuggestionDTO;
+import com.goimay.repository.ArticleRepository;
+import com.goimay.repository.ProductRepository;
+import com.goimay.repository.projection.ArticleTitle;
+import com.goimay.repository.projection.ProductSummary;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Gợi ý khi gõ cho tên sản phẩm và tiêu đề bài viết, phục vụ hoàn toàn từ PrefixTrie trong bộ nhớ.
+ * Trie được dựng lại toàn bộ (rẻ, vài trăm tiêu đề) khi catalog/bài viết thay đổi và theo chu kỳ.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SuggestIndex {
+
+    public static final int MAX_SUGGESTIONS = 10;
+
+    private final ProductRepository productRepository;
+    private final ArticleRepository articleRepository;
+
+    private volatile PrefixTrie products = PrefixTrie.builder(MAX_SUGGESTIONS).build();
+    private volatile PrefixTrie articles = PrefixTrie.builder(MAX_SUGGESTIONS).build();
+
+    public List<SuggestionDTO> suggestProducts(String prefix, int limit) {
+        return products.lookup(prefix, Math.min(limit, MAX_SUGGESTIONS));
+    }
+
+    public List<SuggestionDTO> suggestArticles(String prefix, int limit) {
+        return articles.lookup(prefix, Math.min(limit, MAX_SUGGESTIONS));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${app.search.rebuild-interval-ms:600000}",
+               fixedDelayString = "${app.search.rebuild-interval-ms:600000}")
+    public void rebuildAll() {
+        buildProducts();
+        buildArticles();
+    }
+
+    @Async
+    public void rebuildProducts() {
+        buildProducts();
+    }
+
+    @Async
+    public void rebuildArticles() {
+        buildArticles();
+    }
+
+    private synchronized void buildProducts() {
+        PrefixTrie.Builder builder = PrefixTrie.builder(MAX_SUGGESTIONS);
+        List<ProductSummary> rows = productRepository.findAllActiveSummaries();
+        for (ProductSummary p : rows) {
+            builder.add(p.getId(), p.getName(), p.getSlug());
+        }
+        products = builder.build();
+        log.debug("Product suggest trie rebuilt with {} names", rows.size());
+    }
+
+    private synchronized void buildArticles() {
+        PrefixTrie.Builder builder = PrefixTrie.builder(MAX_SUGGESTIONS);
+        List<ArticleTitle> rows = articleRepository.findPublishedTitles();
+        for (ArticleTitle a : rows) {
+            builder.add(a.getId(), a.getTitle(), a.getSlug());
+        }
+        articles = builder.build();
+        log.debug("Article suggest trie rebuilt with {} titles", rows.size());
+    }
+}
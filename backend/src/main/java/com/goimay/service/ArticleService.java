@@ -1,10 +1,13 @@
 package com.goimay.service;
 
 import com.goimay.dto.ArticleDTO;
+import com.goimay.dto.CursorPage;
+import com.goimay.dto.SuggestionDTO;
 import com.goimay.model.Article;
 import com.goimay.model.Category;
 import com.goimay.repository.ArticleRepository;
 import com.goimay.repository.CategoryRepository;
+import com.goimay.search.SuggestIndex;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -23,14 +26,37 @@ public class ArticleService {
     
     private final ArticleRepository articleRepository;
     private final CategoryRepository categoryRepository;
+    private final SuggestIndex suggestIndex;
     
     public Page<ArticleDTO> getAllArticles(int page, int size) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by("publishedAt").descending());
+        Pageable pageable = PageRequest.of(Paging.clampPage(page), Paging.clampSize(size), Sort.by("publishedAt").descending());
         return articleRepository.findByPublishedTrue(pageable).map(this::convertToDTO);
     }
     
+    /**
+     * Phân trang keyset theo (publishedAt, id) giảm dần, không chạy COUNT(*).
+     */
+    public CursorPage<ArticleDTO> getArticlesByCursor(String cursor, int size) {
+        int limit = Paging.clampSize(size);
+        Paging.Cursor after = Paging.decodeCursor(cursor);
+        Pageable fetch = PageRequest.of(0, limit + 1);
+        List<Article> rows = after == null
+                ? articleRepository.findPublishedFirstPage(fetch)
+                : articleRepository.findPublishedAfter(after.timestamp(), after.longId(), fetch);
+        boolean hasNext = rows.size() > limit;
+        List<Article> content = hasNext ? rows.subList(0, limit) : rows;
+        String nextCursor = null;
+        if (hasNext) {
+            Article last = content.get(content.size() - 1);
+            nextCursor = Paging.encodeCursor(last.getPublishedAt(), last.getId());
+        }
+        return new CursorPage<>(
+                content.stream().map(this::convertToDTO).collect(Collectors.toList()),
+                nextCursor, limit, hasNext);
+    }
+    
     public Page<ArticleDTO> getArticlesByCategory(String categorySlug, int page, int size) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by("publishedAt").descending());
+        Pageable pageable = PageRequest.of(Paging.clampPage(page), Paging.clampSize(size), Sort.by("publishedAt").descending());
         return articleRepository.findByCategorySlugAndPublishedTrue(categorySlug, pageable)
                 .map(this::convertToDTO);
     }
@@ -55,15 +81,19 @@ public class ArticleService {
     }
     
     public List<ArticleDTO> getLatestArticles(int limit) {
-        Pageable pageable = PageRequest.of(0, limit);
+        Pageable pageable = PageRequest.of(0, Paging.clampSize(limit));
         return articleRepository.findLatestArticles(pageable)
                 .stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
     }
     
+    public List<SuggestionDTO> suggestArticles(String prefix, int limit) {
+        return suggestIndex.suggestArticles(prefix, limit);
+    }
+    
     public Page<ArticleDTO> searchArticles(String keyword, int page, int size) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by("publishedAt").descending());
+        Pageable pageable = PageRequest.of(Paging.clampPage(page), Paging.clampSize(size), Sort.by("publishedAt").descending());
         return articleRepository.searchArticles(keyword, pageable).map(this::convertToDTO);
     }
     
@@ -75,6 +105,7 @@ public class ArticleService {
         article.setPublished(true);
         
         Article saved = articleRepository.save(article);
+        AfterCommit.run(suggestIndex::rebuildArticles);
         return convertToDTO(saved);
     }
     
@@ -85,12 +116,14 @@ public class ArticleService {
         
         updateArticleFromDTO(article, dto);
         Article saved = articleRepository.save(article);
+        AfterCommit.run(suggestIndex::rebuildArticles);
         return convertToDTO(saved);
     }
     
     @Transactional
     public void deleteArticle(Long id) {
         articleRepository.deleteById(id);
+        AfterCommit.run(suggestIndex::rebuildArticles);
     }
     
     private void updateArticleFromDTO(Article article, ArticleDTO dto) {
@@ -29,6 +29,7 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
     private final AuthenticationManager authenticationManager;
+    private final UserStateCache userStateCache;
     
     @Value("${google.client-id:}")
     private String googleClientId;
@@ -50,6 +51,8 @@ public class AuthService {
                 .build();
         
         userRepository.save(user);
+        // Bỏ mục "không có người dùng" có thể còn trong cache từ tài khoản cùng email đã bị xóa
+        userStateCache.evict(user.getEmail());
         
         // Tạo token
         String token = jwtService.generateToken(user);
@@ -109,6 +112,7 @@ public class AuthService {
                         .enabled(true)
                         .build();
                 userRepository.save(user);
+                userStateCache.evict(email);
             } else {
                 // Cập nhật Google ID nếu user đã tồn tại nhưng chưa có Google ID
                 if (user.getGoogleId() == null) {
@@ -0,0 +1,150 @@
+package com.goimay.service;
+
+import com.goimay.exception.ServiceBusyException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Cổng nhận vào cho việc tạo đơn lúc mở bán: tối đa max-concurrent đơn được xử lý cùng lúc, phần còn lại xếp hàng
+ * FIFO (Semaphore công bằng) tối đa max-queue yêu cầu và chờ không quá max-wait-ms. Vượt giới hạn thì trả 503 kèm
+ * Retry-After ước lượng từ độ dài hàng đợi và thời gian xử lý trung bình.
+ * <p>
+ * max-concurrent phải nhỏ hơn pool Hikari để trang sản phẩm, danh mục... vẫn còn kết nối khi checkout bão hòa.
+ * Request đang xếp hàng vẫn chiếm một luồng Tomcat trong lúc chờ (tối đa max-wait-ms), nên checkout có thể giữ tới
+ * max-concurrent + max-queue luồng; tổng này bị chặn ở 1/4 server.tomcat.threads.max (kiểm tra lúc khởi động) để
+ * phần còn lại của site vẫn còn luồng phục vụ.
+ */
+@Component
+public class CheckoutAdmission {
+
+    private static final long MAX_RETRY_AFTER_SECONDS = 30;
+    /** Phần luồng Tomcat tối đa mà checkout (đang xử lý + đang chờ) được phép giữ. */
+    private static final int MAX_THREAD_SHARE_DIVISOR = 4;
+
+    private final int maxConcurrent;
+    private final int maxQueue;
+    private final long maxWaitMillis;
+    private final Semaphore permits;
+
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicInteger peakWaiting = new AtomicInteger();
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rejectedQueueFull = new LongAdder();
+    private final LongAdder rejectedTimeout = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final LongAdder totalServiceNanos = new LongAdder();
+
+    public CheckoutAdmission(
+            @Value("${app.checkout.admission.max-concurrent:4}") int maxConcurrent,
+            @Value("${app.checkout.admission.max-queue:40}") int maxQueue,
+            @Value("${app.checkout.admission.max-wait-ms:3000}") long maxWaitMillis,
+            @Value("${server.tomcat.threads.max:200}") int tomcatMaxThreads) {
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.maxQueue = Math.max(0, maxQueue);
+        this.maxWaitMillis = Math.max(0, maxWaitMillis);
+        int threadBudget = tomcatMaxThreads / MAX_THREAD_SHARE_DIVISOR;
+        if (this.maxConcurrent + this.maxQueue > threadBudget) {
+            throw new IllegalStateException("app.checkout.admission.max-concurrent + max-queue ("
+                    + (this.maxConcurrent + this.maxQueue) + ") must not exceed server.tomcat.threads.max / "
+                    + MAX_THREAD_SHARE_DIVISOR + " (" + threadBudget + "): waiting checkouts hold request threads");
+        }
+        this.permits = new Semaphore(this.maxConcurrent, true);
+    }
+
+    public <T> T call(Supplier<T> action) {
+        long enqueuedAt = System.nanoTime();
+        acquire();
+        long startedAt = System.nanoTime();
+        totalWaitNanos.add(startedAt - enqueuedAt);
+        try {
+            return action.get();
+        } finally {
+            totalServiceNanos.add(System.nanoTime() - startedAt);
+            completed.increment();
+            permits.release();
+        }
+    }
+
+    private void acquire() {
+        // Còn permit thì vào ngay, không tính vào hàng đợi: max-queue chỉ đếm request thật sự phải chờ.
+        // tryAcquire có timeout (kể cả 0) vẫn nhường các luồng đang xếp hàng trên Semaphore công bằng.
+        if (tryAcquireNow()) {
+            admitted.increment();
+            return;
+        }
+        if (waiting.incrementAndGet() > maxQueue) {
+            waiting.decrementAndGet();
+            rejectedQueueFull.increment();
+            throw busy();
+        }
+        peakWaiting.accumulateAndGet(waiting.get(), Math::max);
+        boolean acquired;
+        try {
+            // Bản có timeout tôn trọng thứ tự FIFO của Semaphore công bằng (tryAcquire() không tham số thì chen hàng).
+            acquired = permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        } finally {
+            waiting.decrementAndGet();
+        }
+        if (!acquired) {
+            rejectedTimeout.increment();
+            throw busy();
+        }
+        admitted.increment();
+    }
+
+    private boolean tryAcquireNow() {
+        try {
+            return permits.tryAcquire(0, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private ServiceBusyException busy() {
+        return new ServiceBusyException("Hệ thống đang xử lý nhiều đơn hàng, vui lòng thử lại sau giây lát",
+                retryAfterSeconds());
+    }
+
+    /**
+     * Thời gian để xử lý hết hàng đợi hiện tại với tốc độ trung bình, làm tròn lên, trong khoảng 1..30 giây.
+     */
+    private long retryAfterSeconds() {
+        long done = completed.sum();
+        double avgServiceMillis = done == 0 ? 500 : totalServiceNanos.sum() / 1_000_000.0 / done;
+        int backlog = waiting.get() + (maxConcurrent - permits.availablePermits());
+        long seconds = (long) Math.ceil(backlog * avgServiceMillis / maxConcurrent / 1000.0);
+        return Math.min(MAX_RETRY_AFTER_SECONDS, Math.max(1, seconds));
+    }
+
+    public Map<String, Object> stats() {
+        long done = completed.sum();
+        long admittedCount = admitted.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("maxConcurrent", maxConcurrent);
+        stats.put("maxQueue", maxQueue);
+        stats.put("maxWaitMillis", maxWaitMillis);
+        stats.put("inFlight", maxConcurrent - permits.availablePermits());
+        stats.put("queueDepth", waiting.get());
+        stats.put("peakQueueDepth", peakWaiting.get());
+        stats.put("admitted", admittedCount);
+        stats.put("rejectedQueueFull", rejectedQueueFull.sum());
+        stats.put("rejectedTimeout", rejectedTimeout.sum());
+        stats.put("avgWaitMillis", admittedCount == 0 ? 0 : totalWaitNanos.sum() / 1_000_000 / admittedCount);
+        stats.put("avgServiceMillis", done == 0 ? 0 : totalServiceNanos.sum() / 1_000_000 / done);
+        stats.put("retryAfterSeconds", retryAfterSeconds());
+        return stats;
+    }
+}
@@ -0,0 +1,21 @@
+package com.goimay.service;
+
+import com.goimay.repository.projection.ContentStamp;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Phiên bản nội dung dùng cho ETag / Last-Modified của các API đọc.
+ */
+public record ContentVersion(String etag, long lastModifiedMillis) {
+
+    public static ContentVersion of(String prefix, ContentStamp stamp) {
+        long count = stamp.getCount() != null ? stamp.getCount() : 0L;
+        LocalDateTime lastModified = stamp.getLastModified();
+        long millis = lastModified != null
+                ? lastModified.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : -1L;
+        return new ContentVersion("\"" + prefix + "-" + count + "-" + Math.max(millis, 0L) + "\"", millis);
+    }
+}
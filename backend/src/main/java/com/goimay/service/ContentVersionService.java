@@ -0,0 +1,42 @@
+package com.goimay.service;
+
+import com.goimay.repository.ArticleRepository;
+import com.goimay.repository.ProductCategoryRepository;
+import com.goimay.repository.ProductRepository;
+import com.goimay.repository.SiteSettingRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+/**
+ * Tính phiên bản nội dung bằng một truy vấn COUNT/MAX(updatedAt), rẻ hơn nhiều so với chạy truy vấn đầy đủ
+ * rồi serialize chỉ để trả 304. Phiên bản sản phẩm được giữ trong ProductCatalogCache và bị evict cùng danh sách.
+ * Vì vậy mọi đường ghi sản phẩm phải đổi products.updated_at: sửa ảnh gọi Product.touch(),
+ * các UPDATE tồn kho trực tiếp trong StockReservations tự đặt updated_at = NOW().
+ */
+@Service
+@RequiredArgsConstructor
+public class ContentVersionService {
+
+    private final ProductRepository productRepository;
+    private final ArticleRepository articleRepository;
+    private final ProductCategoryRepository productCategoryRepository;
+    private final SiteSettingRepository siteSettingRepository;
+    private final ProductCatalogCache productCatalogCache;
+
+    public ContentVersion products() {
+        return productCatalogCache.getListing("version",
+                () -> ContentVersion.of("p", productRepository.findContentStamp()));
+    }
+
+    public ContentVersion articles() {
+        return ContentVersion.of("a", articleRepository.findContentStamp());
+    }
+
+    public ContentVersion productCategories() {
+        return ContentVersion.of("pc", productCategoryRepository.findContentStamp());
+    }
+
+    public ContentVersion siteSettings() {
+        return ContentVersion.of("s", siteSettingRepository.findContentStamp());
+    }
+}
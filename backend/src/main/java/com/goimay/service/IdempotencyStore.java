@@ -0,0 +1,182 @@
+package com.goimay.service;
+
+import com.goimay.exception.PendingResultException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Lưu kết quả của các yêu cầu có Idempotency-Key trong bộ nhớ, có giới hạn số khóa và TTL.
+ * Gửi lại cùng khóa thì nhận lại đúng kết quả cũ; các yêu cầu trùng khóa đến cùng lúc chờ chung một lần chạy.
+ * Lần chạy lỗi không được lưu, để client có thể thử lại với cùng khóa. Riêng PendingResultException (đơn đã nhận
+ * nhưng chờ commit quá lâu) không phải lỗi: khóa được gắn với kết quả đang chờ, thử lại sẽ nhận đúng đơn đó.
+ * <p>
+ * Mỗi instance giữ store riêng: khi chạy nhiều instance cần sticky session cho POST /api/orders.
+ */
+@Component
+public class IdempotencyStore {
+
+    private static final int MAX_KEY_LENGTH = 100;
+
+    private final int maxEntries;
+    private final long ttlMillis;
+
+    private final ConcurrentHashMap<String, Slot> slots = new ConcurrentHashMap<>();
+    /** Khóa theo thứ tự tạo, để dọn TTL và cắt bớt khi vượt giới hạn mà không phải duyệt cả map. */
+    private final Queue<KeyedSlot> insertionOrder = new ConcurrentLinkedQueue<>();
+
+    public IdempotencyStore(@Value("${app.idempotency.max-entries:10000}") int maxEntries,
+                            @Value("${app.idempotency.ttl-seconds:86400}") long ttlSeconds) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlSeconds * 1000L;
+    }
+
+    /**
+     * @param scope       phạm vi của khóa (vd. email người dùng), để hai người dùng không đụng khóa nhau
+     * @param key         giá trị header Idempotency-Key; null/rỗng thì chạy action bình thường
+     * @param fingerprint đặc trưng của nội dung yêu cầu; cùng khóa nhưng khác nội dung thì báo lỗi
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String scope, String key, Object fingerprint, Supplier<T> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new RuntimeException("Idempotency-Key quá dài (tối đa " + MAX_KEY_LENGTH + " ký tự)");
+        }
+        String storeKey = scope + "\n" + key.trim();
+        int hash = Objects.hashCode(fingerprint);
+
+        while (true) {
+            Slot slot = new Slot(hash, System.currentTimeMillis());
+            Slot existing = slots.putIfAbsent(storeKey, slot);
+            if (existing == null) {
+                insertionOrder.add(new KeyedSlot(storeKey, slot));
+                trimToSize();
+                return run(storeKey, slot, action);
+            }
+            if (existing.isExpired(ttlMillis) && existing.future.isDone()) {
+                slots.remove(storeKey, existing);
+                continue;
+            }
+            if (existing.fingerprint != hash) {
+                throw new RuntimeException("Idempotency-Key đã được dùng cho một yêu cầu khác");
+            }
+            return (T) await(existing);
+        }
+    }
+
+    private static Object await(Slot slot) {
+        try {
+            if (slot.pending == null) {
+                return slot.future.join();
+            }
+            return slot.future.get(slot.pending.getWaitMillis(), TimeUnit.MILLISECONDS);
+        } catch (CompletionException | ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (TimeoutException e) {
+            throw slot.pending;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw slot.pending;
+        }
+    }
+
+    private <T> T run(String storeKey, Slot slot, Supplier<T> action) {
+        try {
+            T result = action.get();
+            slot.future.complete(result);
+            return result;
+        } catch (PendingResultException e) {
+            bindPending(storeKey, slot, e);
+            throw e;
+        } catch (RuntimeException e) {
+            slots.remove(storeKey, slot);
+            slot.future.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Thay slot bằng một slot theo dõi kết quả đang chờ: thành công thì lưu như kết quả thường,
+     * lỗi thì giải phóng khóa. Các yêu cầu đang chờ slot cũ nhận 503 như người gọi đầu.
+     */
+    private void bindPending(String storeKey, Slot slot, PendingResultException e) {
+        Slot pending = new Slot(slot.fingerprint, slot.createdAt, e);
+        slots.replace(storeKey, slot, pending);
+        insertionOrder.add(new KeyedSlot(storeKey, pending));
+        slot.future.completeExceptionally(e);
+        e.getResult().whenComplete((value, error) -> {
+            if (error == null) {
+                pending.future.complete(value);
+                return;
+            }
+            slots.remove(storeKey, pending);
+            pending.future.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error);
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.idempotency.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        KeyedSlot head;
+        while ((head = insertionOrder.peek()) != null && head.slot.isExpired(ttlMillis) && head.slot.future.isDone()) {
+            insertionOrder.poll();
+            slots.remove(head.key, head.slot);
+        }
+    }
+
+    /**
+     * Vượt giới hạn thì bỏ các khóa cũ nhất đã chạy xong; khóa đang chạy được giữ lại.
+     */
+    private void trimToSize() {
+        while (slots.size() > maxEntries) {
+            KeyedSlot head = insertionOrder.peek();
+            if (head == null || !head.slot.future.isDone()) {
+                return;
+            }
+            insertionOrder.poll();
+            slots.remove(head.key, head.slot);
+        }
+    }
+
+    private static final class Slot {
+
+        private final CompletableFuture<Object> future = new CompletableFuture<>();
+        private final int fingerprint;
+        private final long createdAt;
+        /** Khác null nếu slot đang chờ kết quả của một lần chạy đã quá thời gian chờ. */
+        private final PendingResultException pending;
+
+        Slot(int fingerprint, long createdAt) {
+            this(fingerprint, createdAt, null);
+        }
+
+        Slot(int fingerprint, long createdAt, PendingResultException pending) {
+            this.fingerprint = fingerprint;
+            this.createdAt = createdAt;
+            this.pending = pending;
+        }
+
+        boolean isExpired(long ttlMillis) {
+            return System.currentTimeMillis() - createdAt > ttlMillis;
+        }
+    }
+
+    private record KeyedSlot(String key, Slot slot) {
+    }
+}
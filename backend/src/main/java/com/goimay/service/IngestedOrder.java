@@ -0,0 +1,83 @@
+package com.goimay.service;
+
+import com.goimay.model.Order;
+import com.goimay.model.OrderItem;
+import com.goimay.model.OrderStatus;
+import com.goimay.model.PaymentMethod;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Đơn đã được kiểm tra và tính giá, chờ luồng ghi theo lô chèn vào DB. Cũng là một bản ghi JSON trong write-ahead log,
+ * nên chỉ gồm giá trị thuần (không entity, không lazy proxy).
+ */
+public record IngestedOrder(String id, Long userId, OrderStatus status, PaymentMethod paymentMethod,
+                            String fullName, String phone, String address, String email, String note,
+                            BigDecimal subtotal, BigDecimal shippingFee, BigDecimal total, Integer itemCount,
+                            LocalDateTime createdAt, List<Line> items) {
+
+    /**
+     * @param stockTracked sản phẩm có quản lý tồn kho lúc nhận đơn: luồng ghi sẽ trừ products.stock cho dòng này
+     */
+    public record Line(Long productId, String name, String slug, String thumbnail, BigDecimal unitPrice,
+                       Integer quantity, BigDecimal lineTotal, boolean stockTracked) {
+    }
+
+    public static IngestedOrder of(Order order, Long userId, List<OrderItem> items, Set<Long> trackedProducts) {
+        List<Line> lines = new ArrayList<>(items.size());
+        for (OrderItem item : items) {
+            lines.add(new Line(item.getProductId(), item.getName(), item.getSlug(), item.getThumbnail(),
+                    item.getUnitPrice(), item.getQuantity(), item.getLineTotal(),
+                    trackedProducts.contains(item.getProductId())));
+        }
+        return new IngestedOrder(order.getId(), userId, order.getStatus(), order.getPaymentMethod(),
+                order.getFullName(), order.getPhone(), order.getAddress(), order.getEmail(), order.getNote(),
+                order.getSubtotal(), order.getShippingFee(), order.getTotal(), order.getItemCount(),
+                order.getCreatedAt(), lines);
+    }
+
+    public boolean tracksStock() {
+        return items.stream().anyMatch(Line::stockTracked);
+    }
+
+    /**
+     * Order tạm (không gắn User) để dùng chung cho tổng hợp doanh số, sự kiện và toDTO.
+     */
+    public Order toOrder(OrderStatus finalStatus, boolean stockReserved) {
+        Order order = new Order();
+        order.setId(id);
+        order.setStatus(finalStatus);
+        order.setPaymentMethod(paymentMethod);
+        order.setFullName(fullName);
+        order.setPhone(phone);
+        order.setAddress(address);
+        order.setEmail(email);
+        order.setNote(note);
+        order.setSubtotal(subtotal);
+        order.setShippingFee(shippingFee);
+        order.setTotal(total);
+        order.setItemCount(itemCount);
+        order.setStockReserved(stockReserved);
+        order.setCreatedAt(createdAt);
+        order.setUpdatedAt(createdAt);
+        List<OrderItem> orderItems = new ArrayList<>(items.size());
+        for (Line line : items) {
+            OrderItem item = new OrderItem();
+            item.setOrder(order);
+            item.setProductId(line.productId());
+            item.setName(line.name());
+            item.setSlug(line.slug());
+            item.setThumbnail(line.thumbnail());
+            item.setUnitPrice(line.unitPrice());
+            item.setQuantity(line.quantity());
+            item.setLineTotal(line.lineTotal());
+            orderItems.add(item);
+        }
+        order.setItems(orderItems);
+        return order;
+    }
+}
@@ -0,0 +1,21 @@
+package com.goimay.service;
+
+import com.goimay.model.Role;
+import org.springframework.security.core.AuthenticatedPrincipal;
+
+import java.util.Date;
+
+/**
+ * Nội dung của một JWT đã xác minh chữ ký và hạn dùng; cũng là principal của Authentication
+ * (authentication.getName() trả về email như trước).
+ *
+ * @param userId null và role null với token phát hành trước khi có claim uid/role
+ */
+public record JwtClaims(String email, Long userId, Role role, Date issuedAt, Date expiresAt)
+        implements AuthenticatedPrincipal {
+
+    @Override
+    public String getName() {
+        return email;
+    }
+}
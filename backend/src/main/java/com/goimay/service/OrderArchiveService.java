@@ -0,0 +1,58 @@
+package com.goimay.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Chuyển đơn đã giao thành công / đã hủy lâu ngày từ orders, order_items sang orders_archive, order_items_archive.
+ * Mỗi lô chạy trong một transaction riêng: khóa các dòng được chọn, sao chép rồi xóa khỏi bảng nóng,
+ * nên transaction ngắn và không giữ khóa lâu trên bảng orders.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderArchiveService {
+
+    static final String ORDER_COLUMNS = "id, user_id, status, payment_method, full_name, phone, address, email, note, " +
+            "subtotal, shipping_fee, total, item_count, created_at, updated_at";
+    static final String ITEM_COLUMNS = "id, order_id, product_id, name, slug, thumbnail, unit_price, quantity, line_total";
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    /**
+     * Lưu trữ tối đa chunkSize đơn có created_at trước cutoff.
+     *
+     * @return số đơn đã chuyển (0 khi không còn gì để chuyển)
+     */
+    @Transactional
+    public int archiveChunk(LocalDateTime cutoff, int chunkSize) {
+        MapSqlParameterSource select = new MapSqlParameterSource()
+                .addValue("statuses", List.of("GIAO_HANG_THANH_CONG", "DA_HUY"))
+                .addValue("cutoff", Timestamp.valueOf(cutoff))
+                .addValue("limit", chunkSize);
+        List<String> ids = jdbc.queryForList(
+                "SELECT id FROM orders WHERE status IN (:statuses) AND created_at < :cutoff " +
+                "ORDER BY created_at LIMIT :limit FOR UPDATE", select, String.class);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        MapSqlParameterSource byIds = new MapSqlParameterSource("ids", ids);
+        jdbc.update("INSERT INTO orders_archive (" + ORDER_COLUMNS + ", archived_at) " +
+                "SELECT " + ORDER_COLUMNS + ", NOW() FROM orders WHERE id IN (:ids)", byIds);
+        jdbc.update("INSERT INTO order_items_archive (" + ITEM_COLUMNS + ") " +
+                "SELECT " + ITEM_COLUMNS + " FROM order_items WHERE order_id IN (:ids)", byIds);
+        jdbc.update("DELETE FROM order_items WHERE order_id IN (:ids)", byIds);
+        int moved = jdbc.update("DELETE FROM orders WHERE id IN (:ids)", byIds);
+        log.debug("Archived {} orders", moved);
+        return moved;
+    }
+}
@@ -0,0 +1,151 @@
+package com.goimay.service;
+
+import com.goimay.model.Order;
+import com.goimay.model.OrderItem;
+import com.goimay.model.OrderStatus;
+import com.goimay.repository.OrderBatchRepository;
+import com.goimay.repository.OrderItemBatchRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Ghi một lô đơn của OrderIngestionPipeline trong một transaction (một lần commit/fsync cho cả lô):
+ * một batch trừ tồn kho có điều kiện, một batch INSERT orders, một batch INSERT order_items.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrderBatchWriter {
+
+    private final OrderBatchRepository orderBatchRepository;
+    private final OrderItemBatchRepository orderItemBatchRepository;
+    private final StockReservations stockReservations;
+    private final SalesRollupService salesRollupService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * @param keepRejected true: đơn thiếu hàng lúc ghi vẫn được lưu với trạng thái DA_HUY, vì khách đã được báo nhận đơn;
+     *                     false: bỏ đơn đó, người gọi (đang chờ) nhận lỗi
+     */
+    @Transactional
+    public Result write(List<IngestedOrder> batch, boolean keepRejected) {
+        Set<String> existing = orderBatchRepository.findExistingIds(batch.stream().map(IngestedOrder::id).toList());
+        List<IngestedOrder> fresh = new ArrayList<>(batch.size());
+        for (IngestedOrder order : batch) {
+            if (!existing.contains(order.id())) {
+                fresh.add(order);
+            }
+        }
+
+        Map<String, String> rejected = decrementStock(fresh);
+
+        List<Order> orders = new ArrayList<>(fresh.size());
+        List<Long> userIds = new ArrayList<>(fresh.size());
+        List<OrderItem> items = new ArrayList<>();
+        Map<String, Order> written = new LinkedHashMap<>();
+        for (IngestedOrder ingested : fresh) {
+            boolean outOfStock = rejected.containsKey(ingested.id());
+            if (outOfStock && !keepRejected) {
+                continue;
+            }
+            Order order = outOfStock
+                    ? ingested.toOrder(OrderStatus.DA_HUY, false)
+                    : ingested.toOrder(ingested.status(), ingested.tracksStock());
+            orders.add(order);
+            userIds.add(ingested.userId());
+            items.addAll(order.getItems());
+            written.put(order.getId(), order);
+        }
+
+        orderBatchRepository.insertAll(orders, userIds);
+        orderItemBatchRepository.insertAll(items);
+        for (Order order : orders) {
+            // Đơn lưu ở trạng thái DA_HUY vì thiếu hàng chưa từng được tạo thật: không tính doanh số, không báo ORDER_CREATED.
+            if (rejected.containsKey(order.getId())) {
+                continue;
+            }
+            salesRollupService.recordOrderCreated(order, order.getItems());
+            eventPublisher.publishEvent(OrderEvent.created(order));
+        }
+        return new Result(written, rejected, existing);
+    }
+
+    /**
+     * Trừ tồn kho cho mọi dòng có quản lý tồn kho của cả lô trong một batch, sắp theo productId để thứ tự khóa dòng
+     * giống mọi luồng khác. Đơn có dòng không trừ được bị loại và phần đã trừ của nó được cộng trả.
+     *
+     * @return orderId → lý do từ chối
+     */
+    private Map<String, String> decrementStock(List<IngestedOrder> orders) {
+        List<StockLine> lines = new ArrayList<>();
+        for (int i = 0; i < orders.size(); i++) {
+            Map<Long, Integer> perProduct = new TreeMap<>();
+            Map<Long, String> names = new HashMap<>();
+            for (IngestedOrder.Line line : orders.get(i).items()) {
+                if (line.stockTracked()) {
+                    perProduct.merge(line.productId(), line.quantity(), Integer::sum);
+                    names.put(line.productId(), line.name());
+                }
+            }
+            for (Map.Entry<Long, Integer> entry : perProduct.entrySet()) {
+                lines.add(new StockLine(i, entry.getKey(), entry.getValue(), names.get(entry.getKey())));
+            }
+        }
+        if (lines.isEmpty()) {
+            return Map.of();
+        }
+        lines.sort(Comparator.comparing(StockLine::productId).thenComparingInt(StockLine::orderIndex));
+
+        List<Map.Entry<Long, Integer>> updates = new ArrayList<>(lines.size());
+        for (StockLine line : lines) {
+            updates.add(new AbstractMap.SimpleEntry<>(line.productId(), line.quantity()));
+        }
+        boolean[] applied = stockReservations.decrementEach(updates);
+
+        Map<String, String> rejected = new HashMap<>();
+        for (int i = 0; i < applied.length; i++) {
+            if (!applied[i]) {
+                StockLine line = lines.get(i);
+                rejected.putIfAbsent(orders.get(line.orderIndex()).id(),
+                        "Sản phẩm \"" + line.name() + "\" không đủ hàng");
+            }
+        }
+        if (rejected.isEmpty()) {
+            return rejected;
+        }
+        Map<Long, Integer> giveBack = new HashMap<>();
+        for (int i = 0; i < applied.length; i++) {
+            StockLine line = lines.get(i);
+            if (applied[i] && rejected.containsKey(orders.get(line.orderIndex()).id())) {
+                giveBack.merge(line.productId(), line.quantity(), Integer::sum);
+            }
+        }
+        stockReservations.release(giveBack);
+        log.warn("{} ingested orders ran out of stock at write time", rejected.size());
+        return rejected;
+    }
+
+    private record StockLine(int orderIndex, Long productId, int quantity, String name) {
+    }
+
+    /**
+     * @param written    đơn đã chèn trong lô này (kể cả đơn DA_HUY do thiếu hàng nếu keepRejected)
+     * @param rejected   orderId → lý do thiếu hàng
+     * @param duplicates đơn đã có trong DB từ trước (phát lại log), không chèn lại
+     */
+    public record Result(Map<String, Order> written, Map<String, String> rejected, Set<String> duplicates) {
+    }
+}
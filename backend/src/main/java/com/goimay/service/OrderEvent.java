@@ -0,0 +1,44 @@
+package com.goimay.service;
+
+import com.goimay.model.Order;
+import com.goimay.model.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Sự kiện đơn hàng, phát từ OrderService và chỉ được gửi đi sau khi transaction commit.
+ */
+public record OrderEvent(Type type,
+                         String orderId,
+                         String status,
+                         String previousStatus,
+                         String fullName,
+                         BigDecimal total,
+                         LocalDateTime occurredAt) {
+
+    public enum Type {
+        ORDER_CREATED("order-created"),
+        STATUS_CHANGED("order-status-changed");
+
+        private final String eventName;
+
+        Type(String eventName) {
+            this.eventName = eventName;
+        }
+
+        public String eventName() {
+            return eventName;
+        }
+    }
+
+    public static OrderEvent created(Order order) {
+        return new OrderEvent(Type.ORDER_CREATED, order.getId(), order.getStatus().name(), null,
+                order.getFullName(), order.getTotal(), LocalDateTime.now());
+    }
+
+    public static OrderEvent statusChanged(Order order, OrderStatus previous) {
+        return new OrderEvent(Type.STATUS_CHANGED, order.getId(), order.getStatus().name(),
+                previous != null ? previous.name() : null, order.getFullName(), order.getTotal(), LocalDateTime.now());
+    }
+}
@@ -0,0 +1,170 @@
+package com.goimay.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Phát OrderEvent tới các tab admin đang mở qua SSE.
+ * <p>
+ * Luồng ghi đơn chỉ đặt sự kiện vào hàng đợi có giới hạn của từng subscriber rồi trả về ngay;
+ * việc ghi ra socket chạy trên một pool riêng, mỗi subscriber tối đa một tác vụ drain tại một thời điểm.
+ * Tab chậm làm đầy hàng đợi của chính nó thì sự kiện cũ nhất bị bỏ (client tải lại danh sách khi thấy "lagged").
+ */
+@Component
+@Slf4j
+public class OrderEventBroadcaster {
+
+    private final int maxSubscribers;
+    private final int bufferSize;
+    private final long timeoutMillis;
+
+    private final Map<Long, Subscriber> subscribers = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+    private final ExecutorService senders;
+
+    public OrderEventBroadcaster(@Value("${app.orders.stream.max-subscribers:50}") int maxSubscribers,
+                                 @Value("${app.orders.stream.buffer-size:64}") int bufferSize,
+                                 @Value("${app.orders.stream.timeout-ms:1800000}") long timeoutMillis,
+                                 @Value("${app.orders.stream.sender-threads:2}") int senderThreads) {
+        this.maxSubscribers = maxSubscribers;
+        this.bufferSize = bufferSize;
+        this.timeoutMillis = timeoutMillis;
+        this.senders = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "order-sse-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public SseEmitter subscribe() {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new RuntimeException("Quá nhiều kết nối theo dõi đơn hàng, vui lòng thử lại sau");
+        }
+        SseEmitter emitter = newEmitter();
+        long id = ids.incrementAndGet();
+        Subscriber subscriber = new Subscriber(id, emitter, bufferSize);
+        subscribers.put(id, subscriber);
+        emitter.onCompletion(() -> subscribers.remove(id));
+        emitter.onTimeout(() -> subscribers.remove(id));
+        emitter.onError(e -> subscribers.remove(id));
+        subscriber.enqueue(SseEmitter.event().name("ready").data(id));
+        schedule(subscriber);
+        return emitter;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onOrderEvent(OrderEvent event) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        for (Subscriber subscriber : subscribers.values()) {
+            subscriber.enqueue(SseEmitter.event()
+                    .name(event.type().eventName())
+                    .id(event.orderId())
+                    .data(event));
+            schedule(subscriber);
+        }
+    }
+
+    /**
+     * Comment định kỳ giữ kết nối qua proxy và phát hiện tab đã đóng.
+     */
+    @Scheduled(fixedDelayString = "${app.orders.stream.heartbeat-ms:25000}")
+    public void heartbeat() {
+        for (Subscriber subscriber : subscribers.values()) {
+            subscriber.enqueue(SseEmitter.event().comment("ping"));
+            schedule(subscriber);
+        }
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    SseEmitter newEmitter() {
+        return new SseEmitter(timeoutMillis);
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.draining.compareAndSet(false, true)) {
+            senders.execute(() -> drain(subscriber));
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            // Kiểm tra lagged trước mỗi lần gửi: sự kiện có thể bị bỏ trong lúc lượt drain này đang ghi.
+            while (true) {
+                if (subscriber.lagged.getAndSet(false)) {
+                    subscriber.emitter.send(SseEmitter.event().name("lagged").data("events dropped"));
+                }
+                SseEmitter.SseEventBuilder next = subscriber.queue.poll();
+                if (next == null) {
+                    break;
+                }
+                subscriber.emitter.send(next);
+            }
+        } catch (IOException | IllegalStateException e) {
+            subscribers.remove(subscriber.id);
+            subscriber.queue.clear();
+            log.debug("Order stream subscriber {} dropped: {}", subscriber.id, e.getMessage());
+            return;
+        } finally {
+            subscriber.draining.set(false);
+        }
+        // Sự kiện đến sau lần poll cuối nhưng trước khi bỏ cờ draining
+        if ((!subscriber.queue.isEmpty() || subscriber.lagged.get()) && subscribers.containsKey(subscriber.id)) {
+            schedule(subscriber);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdownNow();
+        for (Subscriber subscriber : subscribers.values()) {
+            subscriber.emitter.complete();
+        }
+        subscribers.clear();
+    }
+
+    private static final class Subscriber {
+
+        private final long id;
+        private final SseEmitter emitter;
+        private final ArrayBlockingQueue<SseEmitter.SseEventBuilder> queue;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean lagged = new AtomicBoolean();
+
+        Subscriber(long id, SseEmitter emitter, int bufferSize) {
+            this.id = id;
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        /**
+         * Không bao giờ chặn: hàng đợi đầy thì bỏ sự kiện cũ nhất và đánh dấu lagged.
+         */
+        void enqueue(SseEmitter.SseEventBuilder event) {
+            while (!queue.offer(event)) {
+                if (queue.poll() != null) {
+                    lagged.set(true);
+                }
+            }
+        }
+    }
+}
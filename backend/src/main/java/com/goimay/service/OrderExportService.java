@@ -0,0 +1,123 @@
+package com.goimay.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Xuất đơn hàng + dòng hàng ra CSV cho kế toán, đọc thẳng từ result set chỉ-tiến của MySQL
+ * (fetchSize = Integer.MIN_VALUE: driver trả từng dòng thay vì nạp cả kết quả), nên bộ nhớ không đổi theo số dòng.
+ * Đọc bảng lưu trữ trước (đơn cũ hơn) rồi tới bảng nóng, mỗi phần theo created_at tăng dần.
+ */
+@Service
+@RequiredArgsConstructor
+public class OrderExportService {
+
+    private static final String HEADER = "order_id,created_at,status,payment_method,full_name,phone,email,address," +
+            "subtotal,shipping_fee,total,product_id,product_name,unit_price,quantity,line_total";
+
+    private static final String SELECT = "SELECT o.id, o.created_at, o.status, o.payment_method, o.full_name, o.phone, " +
+            "o.email, o.address, o.subtotal, o.shipping_fee, o.total, " +
+            "i.product_id, i.name, i.unit_price, i.quantity, i.line_total ";
+
+    private static final String ARCHIVE_QUERY = SELECT +
+            "FROM orders_archive o JOIN order_items_archive i ON i.order_id = o.id " +
+            "WHERE o.created_at >= ? AND o.created_at < ? ORDER BY o.created_at, o.id";
+
+    private static final String HOT_QUERY = SELECT +
+            "FROM orders o JOIN order_items i ON i.order_id = o.id " +
+            "WHERE o.created_at >= ? AND o.created_at < ? ORDER BY o.created_at, o.id";
+
+    private static final DateTimeFormatter CSV_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Ghi CSV (UTF-8 có BOM để Excel nhận đúng tiếng Việt) cho các đơn có created_at trong [from, to).
+     */
+    public void writeCsv(Writer out, LocalDateTime from, LocalDateTime to) throws IOException {
+        out.write('\uFEFF');
+        out.write(HEADER);
+        out.write("\r\n");
+        try {
+            stream(ARCHIVE_QUERY, from, to, out);
+            stream(HOT_QUERY, from, to, out);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        out.flush();
+    }
+
+    private void stream(String sql, LocalDateTime from, LocalDateTime to, Writer out) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(Integer.MIN_VALUE);
+            ps.setTimestamp(1, Timestamp.valueOf(from));
+            ps.setTimestamp(2, Timestamp.valueOf(to));
+            return ps;
+        }, (RowCallbackHandler) rs -> writeRow(rs, out));
+    }
+
+    private static void writeRow(ResultSet rs, Writer out) throws SQLException {
+        StringBuilder line = new StringBuilder(256);
+        Timestamp createdAt = rs.getTimestamp(2);
+        append(line, rs.getString(1)).append(',');
+        append(line, createdAt != null ? CSV_TIME.format(createdAt.toLocalDateTime()) : null).append(',');
+        append(line, rs.getString(3)).append(',');
+        append(line, rs.getString(4)).append(',');
+        append(line, rs.getString(5)).append(',');
+        append(line, rs.getString(6)).append(',');
+        append(line, rs.getString(7)).append(',');
+        append(line, rs.getString(8)).append(',');
+        appendNumber(line, rs.getBigDecimal(9)).append(',');
+        appendNumber(line, rs.getBigDecimal(10)).append(',');
+        appendNumber(line, rs.getBigDecimal(11)).append(',');
+        line.append(rs.getLong(12)).append(',');
+        append(line, rs.getString(13)).append(',');
+        appendNumber(line, rs.getBigDecimal(14)).append(',');
+        line.append(rs.getInt(15)).append(',');
+        appendNumber(line, rs.getBigDecimal(16)).append("\r\n");
+        try {
+            out.append(line);
+        } catch (IOException e) {
+            // Client ngắt kết nối: dừng đọc result set
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static StringBuilder appendNumber(StringBuilder line, BigDecimal value) {
+        return value != null ? line.append(value.toPlainString()) : line;
+    }
+
+    /**
+     * Trích dẫn theo RFC 4180; ô bắt đầu bằng = + - @ được thêm ' để bảng tính không hiểu là công thức.
+     */
+    static StringBuilder append(StringBuilder line, String value) {
+        if (value == null || value.isEmpty()) {
+            return line;
+        }
+        String text = value;
+        char first = text.charAt(0);
+        if (first == '=' || first == '+' || first == '-' || first == '@') {
+            text = "'" + text;
+        }
+        boolean quote = text.indexOf(',') >= 0 || text.indexOf('"') >= 0
+                || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0;
+        if (!quote) {
+            return line.append(text);
+        }
+        return line.append('"').append(text.replace("\"", "\"\"")).append('"');
+    }
+}
@@ -0,0 +1,79 @@
+package com.goimay.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sinh mã đơn kiểu Snowflake: 41 bit mili-giây từ EPOCH | 10 bit node | 12 bit thứ tự trong cùng mili-giây.
+ * Mã được in thành "GM-" + 13 ký tự base36 có đệm 0, nên thứ tự chuỗi trùng thứ tự thời gian
+ * và khóa chính VARCHAR của orders luôn được chèn vào cuối index.
+ * <p>
+ * Không khóa: trạng thái (mili-giây, thứ tự) nằm trong một AtomicLong và tiến bằng CAS.
+ * Hết 4096 mã trong một mili-giây thì mượn mili-giây kế tiếp thay vì chờ; đồng hồ lùi cũng không làm mã lùi theo.
+ * Mỗi instance cần một app.order-id.node-id (0..1023) riêng; nếu không cấu hình thì suy ra từ hostname.
+ */
+@Component
+@Slf4j
+public class OrderIdGenerator {
+
+    private static final long EPOCH = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int WIDTH = 13; // Long.MAX_VALUE trong base36 có 13 ký tự
+
+    private final long node;
+
+    /** (mili-giây kể từ EPOCH << SEQUENCE_BITS) | thứ tự của mã vừa cấp. */
+    private final AtomicLong state = new AtomicLong();
+
+    public OrderIdGenerator(@Value("${app.order-id.node-id:-1}") long configuredNode) {
+        if (configuredNode > MAX_NODE) {
+            throw new IllegalStateException("app.order-id.node-id must be between 0 and " + MAX_NODE);
+        }
+        this.node = configuredNode >= 0 ? configuredNode : nodeFromHostname();
+    }
+
+    public String nextId() {
+        long id = nextRaw();
+        String base36 = Long.toString(id, 36).toUpperCase();
+        StringBuilder sb = new StringBuilder(3 + WIDTH).append("GM-");
+        for (int i = base36.length(); i < WIDTH; i++) {
+            sb.append('0');
+        }
+        return sb.append(base36).toString();
+    }
+
+    long nextRaw() {
+        while (true) {
+            long current = state.get();
+            long now = System.currentTimeMillis() - EPOCH;
+            long next = now > (current >>> SEQUENCE_BITS)
+                    ? now << SEQUENCE_BITS
+                    : current + 1; // tràn thứ tự sẽ cộng dồn sang phần mili-giây
+            if (state.compareAndSet(current, next)) {
+                long millis = next >>> SEQUENCE_BITS;
+                return (millis << (NODE_BITS + SEQUENCE_BITS)) | (node << SEQUENCE_BITS) | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    private static long nodeFromHostname() {
+        try {
+            String host = InetAddress.getLocalHost().getHostName();
+            long derived = (host.hashCode() & 0x7fffffff) % (MAX_NODE + 1);
+            log.warn("app.order-id.node-id not set; using {} derived from hostname '{}'. " +
+                    "Set a distinct node id per instance to rule out collisions.", derived, host);
+            return derived;
+        } catch (Exception e) {
+            log.warn("app.order-id.node-id not set and hostname unavailable; using node 0");
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,627 @@
+package com.goimay.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.goimay.dto.CreateOrderRequest;
+import com.goimay.dto.OrderDTO;
+import com.goimay.exception.PendingResultException;
+import com.goimay.exception.ServiceBusyException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Chế độ nhận đơn theo lô cho giờ cao điểm (app.orders.ingestion.enabled). Đơn được kiểm tra, tính giá, cấp mã và giữ
+ * hàng trong bộ nhớ ngay trên luồng request, rồi vào một hàng đợi có giới hạn; một luồng ghi duy nhất gom các đơn
+ * đang chờ thành một transaction (OrderBatchWriter), nên thông lượng không còn bị giới hạn bởi độ trễ commit mỗi đơn.
+ * <p>
+ * Độ bền khi báo nhận đơn (app.orders.ingestion.durability):
+ * <ul>
+ *     <li>sync — chờ lô chứa đơn commit xong mới trả lời; bền như ghi trực tiếp, vẫn gộp commit giữa các request đồng thời.</li>
+ *     <li>wal — ghi một dòng JSON vào write-ahead log cục bộ và fsync (gộp fsync giữa các request), chỉ khi fsync
+ *     thành công đơn mới vào hàng đợi và được báo nhận; log được phát lại khi khởi động, đơn đã có trong DB bị bỏ qua.
+ *     Log được cắt về 0 mỗi khi mọi đơn trong đó đã vào DB (hoặc đã nằm trong file dead-letter).
+ *     Ghi/fsync lỗi thì log bị coi là hỏng: các đơn chưa bền nhận 503, pipeline ngừng nhận đơn (request đi đường ghi
+ *     trực tiếp) cho tới khi luồng ghi xử lý hết đơn đã báo nhận và làm mới được log.</li>
+ *     <li>none — trả lời ngay khi vào hàng đợi; đơn chưa ghi sẽ mất nếu tiến trình chết.</li>
+ * </ul>
+ * Với wal/none, đơn thiếu hàng lúc ghi (bộ đếm trong bộ nhớ lệch DB) vẫn được lưu với trạng thái DA_HUY để khách thấy.
+ * Đơn đã báo nhận mà DB từ chối không phải vì lỗi tạm thời (dữ liệu hỏng...) được chuyển vào file dead-letter
+ * (app.orders.ingestion.dead-letter-path) để xử lý tay; nếu không ghi được file đó thì đơn được giữ lại trong log.
+ * Đơn có holdId luôn đi đường ghi trực tiếp.
+ */
+@Component
+@Slf4j
+public class OrderIngestionPipeline {
+
+    public enum Durability { SYNC, WAL, NONE }
+
+    private static final long MAX_RETRY_BACKOFF_MILLIS = 5000;
+    private static final long WAL_RECOVERY_INTERVAL_MILLIS = 5000;
+
+    private final OrderService orderService;
+    private final OrderBatchWriter orderBatchWriter;
+    private final CheckoutAdmission checkoutAdmission;
+    private final ObjectMapper objectMapper;
+
+    private final boolean enabled;
+    private final Durability durability;
+    private final int maxBatch;
+    private final Path walPath;
+    private final Path deadLetterPath;
+    private final long ackTimeoutMillis;
+    private final BlockingQueue<Pending> queue;
+
+    private volatile boolean accepting;
+    private volatile boolean running;
+    private Thread writerThread;
+
+    private FileChannel wal;
+    private final Object walLock = new Object();
+    private final Object syncLock = new Object();
+    private volatile boolean walHealthy = true; // ghi dưới walLock
+    private long appendedSeq;     // walLock
+    private long unwrittenInWal;  // walLock: đã append, chưa vào DB/dead-letter
+    private long appendsInFlight; // walLock: đã append, đang chờ fsync, chưa vào hàng đợi
+    private long walOffset;       // walLock
+    private long durableOffset;   // walLock
+    private long walEpoch;        // walLock: tăng mỗi lần walFailed cắt đuôi log
+    private long syncedSeq;       // syncLock
+    private long lastRecoveryAttempt; // luồng ghi
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong rejectedOutOfStock = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong fsyncs = new AtomicLong();
+    private final AtomicLong walFailures = new AtomicLong();
+    private final AtomicLong deadLettered = new AtomicLong();
+    private final AtomicLong ackTimeouts = new AtomicLong();
+    private long replayed;
+    private long replayDuplicates;
+    private volatile long lastBatchSize;
+    private volatile long lastBatchMillis;
+
+    public OrderIngestionPipeline(OrderService orderService,
+                                  OrderBatchWriter orderBatchWriter,
+                                  CheckoutAdmission checkoutAdmission,
+                                  ObjectMapper objectMapper,
+                                  @Value("${app.orders.ingestion.enabled:false}") boolean enabled,
+                                  @Value("${app.orders.ingestion.durability:wal}") String durability,
+                                  @Value("${app.orders.ingestion.queue-capacity:5000}") int queueCapacity,
+                                  @Value("${app.orders.ingestion.max-batch:200}") int maxBatch,
+                                  @Value("${app.orders.ingestion.wal-path:data/order-ingest.wal}") String walPath,
+                                  @Value("${app.orders.ingestion.dead-letter-path:data/order-ingest.dead}") String deadLetterPath,
+                                  @Value("${app.orders.ingestion.ack-timeout-ms:10000}") long ackTimeoutMillis) {
+        this.orderService = orderService;
+        this.orderBatchWriter = orderBatchWriter;
+        this.checkoutAdmission = checkoutAdmission;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.durability = Durability.valueOf(durability.trim().toUpperCase(Locale.ROOT));
+        this.maxBatch = Math.max(1, maxBatch);
+        this.walPath = Paths.get(walPath);
+        this.deadLetterPath = Paths.get(deadLetterPath);
+        this.ackTimeoutMillis = Math.max(1, ackTimeoutMillis);
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        if (durability == Durability.WAL) {
+            if (walPath.getParent() != null) {
+                Files.createDirectories(walPath.getParent());
+            }
+            replayWal();
+            wal = FileChannel.open(walPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            walOffset = wal.size();
+            durableOffset = walOffset;
+        }
+        running = true;
+        writerThread = new Thread(this::runWriter, "order-ingest-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        accepting = true;
+        log.info("Order ingestion pipeline started (durability={}, maxBatch={})", durability, maxBatch);
+    }
+
+    /**
+     * Đơn này có đi qua pipeline không (bật chế độ lô, log còn ghi được và không dùng phiên giữ hàng).
+     */
+    public boolean accepts(CreateOrderRequest request) {
+        return accepting && walHealthy && (request.getHoldId() == null || request.getHoldId().trim().isEmpty());
+    }
+
+    /**
+     * Chuẩn bị đơn và đưa vào hàng đợi trong cổng CheckoutAdmission; chế độ sync chờ commit ngoài cổng,
+     * để các request đang chờ không giữ chỗ của nhau và lô gộp được nhiều đơn. Chờ quá ack-timeout-ms thì trả 503
+     * bằng PendingResultException: đơn vẫn nằm trong hàng đợi, nên IdempotencyStore giữ khóa gắn với đơn này và
+     * lần thử lại cùng Idempotency-Key nhận lại đúng đơn thay vì tạo đơn thứ hai.
+     */
+    public OrderDTO place(String email, CreateOrderRequest request) {
+        CompletableFuture<OrderDTO> acknowledged = checkoutAdmission.call(
+                () -> submit(orderService.prepareOrder(email, request)));
+        try {
+            return acknowledged.get(ackTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (TimeoutException e) {
+            ackTimeouts.incrementAndGet();
+            throw new PendingResultException(
+                    "Đơn hàng đang được xử lý lâu hơn bình thường, vui lòng kiểm tra lịch sử đơn hàng trước khi đặt lại",
+                    MAX_RETRY_BACKOFF_MILLIS / 1000, acknowledged, ackTimeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw busy();
+        }
+    }
+
+    private CompletableFuture<OrderDTO> submit(Prepared prepared) {
+        Pending pending = new Pending(prepared, durability == Durability.SYNC ? new CompletableFuture<>() : null);
+        try {
+            if (!accepting) {
+                throw busy();
+            }
+            if (durability == Durability.WAL) {
+                appendAndEnqueue(pending);
+            } else if (!queue.offer(pending)) {
+                throw busy();
+            }
+        } catch (RuntimeException e) {
+            prepared.reservation().release();
+            throw e;
+        }
+        accepted.incrementAndGet();
+        return pending.future() != null ? pending.future() : CompletableFuture.completedFuture(prepared.response());
+    }
+
+    private void appendAndEnqueue(Pending pending) {
+        byte[] line;
+        try {
+            line = (objectMapper.writeValueAsString(pending.prepared().order()) + "\n").getBytes(StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new RuntimeException("Không ghi được đơn hàng: " + e.getMessage());
+        }
+        long seq;
+        synchronized (walLock) {
+            if (!walHealthy) {
+                throw walUnavailable();
+            }
+            // Đơn chỉ vào hàng đợi sau fsync, nên chỗ trống phải tính cả các đơn đang chờ fsync.
+            if (queue.remainingCapacity() - appendsInFlight <= 0) {
+                throw busy();
+            }
+            try {
+                ByteBuffer buffer = ByteBuffer.wrap(line);
+                while (buffer.hasRemaining()) {
+                    wal.write(buffer);
+                }
+            } catch (IOException e) {
+                walFailed(e);
+                throw walUnavailable();
+            }
+            seq = ++appendedSeq;
+            walOffset += line.length;
+            unwrittenInWal++;
+            appendsInFlight++;
+        }
+        boolean durable = syncUpTo(seq);
+        synchronized (walLock) {
+            appendsInFlight--;
+            if (!durable) {
+                unwrittenInWal--;
+                throw walUnavailable();
+            }
+            queue.add(pending);
+        }
+    }
+
+    /**
+     * Gộp fsync: luồng nào vào trước fsync cho mọi dòng đã append tới lúc đó, các luồng sau thấy dòng của mình đã bền
+     * thì trả về ngay.
+     *
+     * @return false nếu dòng seq chưa bền (fsync lỗi, ở lượt này hoặc trước đó)
+     */
+    private boolean syncUpTo(long seq) {
+        synchronized (syncLock) {
+            if (syncedSeq >= seq) {
+                return true;
+            }
+            long target;
+            long targetOffset;
+            long epoch;
+            synchronized (walLock) {
+                if (!walHealthy) {
+                    return false;
+                }
+                target = appendedSeq;
+                targetOffset = walOffset;
+                epoch = walEpoch;
+            }
+            try {
+                wal.force(false);
+            } catch (IOException e) {
+                walFailed(e);
+                return false;
+            }
+            fsyncs.incrementAndGet();
+            synchronized (walLock) {
+                // walFailed (lỗi append ở luồng khác) có thể đã cắt log về durableOffset sau khi lấy targetOffset:
+                // các dòng tới targetOffset không còn trong file, nên không được công bố là bền.
+                if (walEpoch != epoch) {
+                    return false;
+                }
+                durableOffset = targetOffset;
+            }
+            syncedSeq = target;
+            return true;
+        }
+    }
+
+    /**
+     * Log không còn đảm bảo được độ bền: ngừng nhận đơn qua pipeline và cắt bỏ phần chưa fsync (đơn ở phần đó sẽ nhận
+     * 503, không được phát lại). Các đơn đã báo nhận vẫn được ghi tiếp và vẫn nằm trong log cho tới khi phục hồi.
+     */
+    private void walFailed(IOException cause) {
+        synchronized (walLock) {
+            if (walHealthy) {
+                walHealthy = false;
+                walFailures.incrementAndGet();
+                log.error("Order WAL write failed, ingestion paused: {}", cause.getMessage());
+            }
+            walEpoch++;
+            try {
+                wal.truncate(durableOffset);
+                walOffset = durableOffset;
+            } catch (IOException e) {
+                log.error("Could not drop non-durable order WAL tail: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Gọi từ luồng ghi lúc rảnh: khi mọi đơn đã báo nhận đều đã vào DB thì làm mới log và nhận đơn trở lại.
+     */
+    private void tryRecoverWal() {
+        long now = System.currentTimeMillis();
+        if (now - lastRecoveryAttempt < WAL_RECOVERY_INTERVAL_MILLIS) {
+            return;
+        }
+        lastRecoveryAttempt = now;
+        synchronized (walLock) {
+            if (walHealthy || unwrittenInWal > 0 || appendsInFlight > 0) {
+                return;
+            }
+            try {
+                wal.truncate(0);
+                wal.force(true);
+            } catch (IOException e) {
+                log.warn("Order WAL still unavailable: {}", e.getMessage());
+                return;
+            }
+            walOffset = 0;
+            durableOffset = 0;
+            walHealthy = true;
+        }
+        log.info("Order WAL recovered, ingestion resumed");
+    }
+
+    private void runWriter() {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (wal != null && !walHealthy && running) {
+                        tryRecoverWal();
+                    }
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatch - 1);
+                if (!flush(batch)) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Order ingestion writer error: {}", e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * @return false nếu phải dừng (đang tắt mà DB không ghi được; với wal, đơn còn trong log để phát lại)
+     */
+    private boolean flush(List<Pending> batch) throws InterruptedException {
+        long start = System.currentTimeMillis();
+        List<IngestedOrder> orders = batch.stream().map(p -> p.prepared().order()).toList();
+        boolean keepRejected = durability != Durability.SYNC;
+        int settled = batch.size();
+        long backoff = 100;
+        while (true) {
+            try {
+                complete(batch, orderBatchWriter.write(orders, keepRejected));
+                break;
+            } catch (DataAccessResourceFailureException | TransientDataAccessException e) {
+                if (durability == Durability.SYNC) {
+                    fail(batch, new ServiceBusyException("Hệ thống đang bận, vui lòng thử lại", 1));
+                    break;
+                }
+                if (!running) {
+                    log.error("Stopping with {} unwritten ingested orders: {}", batch.size(), e.getMessage());
+                    return false;
+                }
+                log.warn("Order batch write failed, retrying in {} ms: {}", backoff, e.getMessage());
+                Thread.sleep(backoff);
+                backoff = Math.min(backoff * 2, MAX_RETRY_BACKOFF_MILLIS);
+            } catch (RuntimeException e) {
+                if (batch.size() == 1) {
+                    fail(batch, new RuntimeException("Không thể tạo đơn hàng"));
+                    // sync: khách nhận lỗi, chưa có gì được báo nhận. wal/none: đơn đã báo nhận, không được bỏ.
+                    if (durability != Durability.SYNC && !deadLetter(batch.get(0).prepared().order(), e.getMessage())) {
+                        settled = 0;
+                    }
+                    break;
+                }
+                // Một đơn lỗi không được kéo cả lô: ghi lại từng đơn.
+                for (Pending pending : batch) {
+                    if (!flush(new ArrayList<>(List.of(pending)))) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        }
+        batches.incrementAndGet();
+        lastBatchSize = batch.size();
+        lastBatchMillis = System.currentTimeMillis() - start;
+        markWritten(settled);
+        return true;
+    }
+
+    private void complete(List<Pending> batch, OrderBatchWriter.Result result) {
+        for (Pending pending : batch) {
+            String reason = result.rejected().get(pending.prepared().order().id());
+            if (reason != null) {
+                pending.prepared().reservation().release();
+                rejectedOutOfStock.incrementAndGet();
+                if (pending.future() != null) {
+                    pending.future().completeExceptionally(new RuntimeException(reason));
+                }
+            } else {
+                written.incrementAndGet();
+                if (pending.future() != null) {
+                    pending.future().complete(pending.prepared().response());
+                }
+            }
+        }
+    }
+
+    private void fail(List<Pending> batch, RuntimeException error) {
+        for (Pending pending : batch) {
+            pending.prepared().reservation().release();
+            failed.incrementAndGet();
+            if (pending.future() != null) {
+                pending.future().completeExceptionally(error);
+            }
+        }
+    }
+
+    /**
+     * Mọi đơn đã append đều đã vào DB hoặc dead-letter thì cắt log về 0 để nó không phình mãi. Đơn không ghi được
+     * ở đâu cả không được tính, nên log chứa nó được giữ nguyên để phát lại ở lần khởi động sau.
+     */
+    private void markWritten(int count) {
+        if (wal == null) {
+            return;
+        }
+        synchronized (walLock) {
+            unwrittenInWal -= count;
+            if (unwrittenInWal == 0 && appendsInFlight == 0 && walHealthy) {
+                try {
+                    wal.truncate(0);
+                    walOffset = 0;
+                    durableOffset = 0;
+                } catch (IOException e) {
+                    log.warn("Could not truncate order WAL: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Chép đơn bị DB từ chối vào file dead-letter (một dòng JSON gồm thời điểm, lý do và đơn) và fsync.
+     *
+     * @return true nếu đã lưu bền
+     */
+    private boolean deadLetter(IngestedOrder order, String reason) {
+        Map<String, Object> record = new LinkedHashMap<>();
+        record.put("failedAt", LocalDateTime.now().toString());
+        record.put("reason", reason);
+        record.put("order", order);
+        try {
+            byte[] line = (objectMapper.writeValueAsString(record) + "\n").getBytes(StandardCharsets.UTF_8);
+            if (deadLetterPath.getParent() != null) {
+                Files.createDirectories(deadLetterPath.getParent());
+            }
+            try (FileChannel channel = FileChannel.open(deadLetterPath,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                ByteBuffer buffer = ByteBuffer.wrap(line);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            log.error("Could not dead-letter ingested order {}, keeping it in the WAL: {}", order.id(), e.getMessage());
+            return false;
+        }
+        deadLettered.incrementAndGet();
+        log.error("Ingested order {} rejected by the database, moved to {}: {}", order.id(), deadLetterPath, reason);
+        return true;
+    }
+
+    /**
+     * Ghi lại các đơn đã báo nhận nhưng chưa kịp vào DB trước lần tắt trước. Dòng cuối bị cắt dở (chết giữa lúc ghi,
+     * chưa fsync nên chưa báo nhận) được bỏ qua. DB chưa sẵn sàng thì ném lỗi và giữ nguyên log; đơn bị DB từ chối
+     * vào dead-letter, đơn không vào được dead-letter thì ở lại trong log.
+     */
+    private void replayWal() throws IOException {
+        if (!Files.exists(walPath)) {
+            return;
+        }
+        List<IngestedOrder> pending = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(walPath, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    pending.add(objectMapper.readValue(line, IngestedOrder.class));
+                } catch (IOException e) {
+                    log.warn("Skipping unreadable order WAL record: {}", e.getMessage());
+                }
+            }
+        }
+        int stuck = 0;
+        for (int from = 0; from < pending.size(); from += maxBatch) {
+            stuck += replay(pending.subList(from, Math.min(from + maxBatch, pending.size())));
+        }
+        if (stuck > 0) {
+            // Giữ cả log; các đơn đã ghi sẽ bị bỏ qua như bản trùng ở lần phát lại sau.
+            unwrittenInWal = stuck;
+            log.error("{} replayed orders could not be written nor dead-lettered; order WAL kept", stuck);
+        } else {
+            try (FileChannel channel = FileChannel.open(walPath, StandardOpenOption.WRITE)) {
+                channel.truncate(0);
+                channel.force(true);
+            }
+        }
+        if (!pending.isEmpty()) {
+            log.info("Replayed order WAL: {} orders written, {} already present", replayed, replayDuplicates);
+        }
+    }
+
+    /**
+     * @return số đơn không ghi được và cũng không vào được dead-letter
+     */
+    private int replay(List<IngestedOrder> chunk) {
+        try {
+            OrderBatchWriter.Result result = orderBatchWriter.write(chunk, true);
+            replayed += result.written().size();
+            replayDuplicates += result.duplicates().size();
+            return 0;
+        } catch (DataAccessResourceFailureException | TransientDataAccessException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            if (chunk.size() == 1) {
+                return deadLetter(chunk.get(0), e.getMessage()) ? 0 : 1;
+            }
+            int stuck = 0;
+            for (IngestedOrder order : chunk) {
+                stuck += replay(List.of(order));
+            }
+            return stuck;
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        accepting = false;
+        running = false;
+        if (writerThread != null) {
+            try {
+                writerThread.join(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (wal != null) {
+            try {
+                wal.close();
+            } catch (IOException e) {
+                log.debug("Close order WAL: {}", e.getMessage());
+            }
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("durability", durability.name().toLowerCase(Locale.ROOT));
+        stats.put("queueDepth", queue.size());
+        stats.put("queueCapacity", queue.size() + queue.remainingCapacity());
+        stats.put("accepted", accepted.get());
+        stats.put("written", written.get());
+        stats.put("rejectedOutOfStock", rejectedOutOfStock.get());
+        stats.put("failed", failed.get());
+        stats.put("batches", batches.get());
+        stats.put("avgBatchSize", batches.get() == 0 ? 0 : (written.get() + rejectedOutOfStock.get()) / batches.get());
+        stats.put("lastBatchSize", lastBatchSize);
+        stats.put("lastBatchMillis", lastBatchMillis);
+        stats.put("ackTimeouts", ackTimeouts.get());
+        stats.put("deadLettered", deadLettered.get());
+        stats.put("walHealthy", walHealthy);
+        stats.put("walFsyncs", fsyncs.get());
+        stats.put("walFailures", walFailures.get());
+        stats.put("replayed", replayed);
+        stats.put("replayDuplicates", replayDuplicates);
+        return stats;
+    }
+
+    private ServiceBusyException busy() {
+        return new ServiceBusyException("Hệ thống đang nhận quá nhiều đơn hàng, vui lòng thử lại sau giây lát", 1);
+    }
+
+    private ServiceBusyException walUnavailable() {
+        return new ServiceBusyException("Hệ thống tạm thời không nhận được đơn hàng, vui lòng thử lại sau giây lát",
+                WAL_RECOVERY_INTERVAL_MILLIS / 1000);
+    }
+
+    /**
+     * Đơn đã sẵn sàng ghi: bản ghi cho DB/log, phản hồi trả cho khách và phần hàng đã giữ trong bộ nhớ.
+     */
+    public record Prepared(IngestedOrder order, OrderDTO response, StockReservations.Reservation reservation) {
+    }
+
+    private record Pending(Prepared prepared, CompletableFuture<OrderDTO> future) {
+    }
+}
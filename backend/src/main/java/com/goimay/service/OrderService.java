@@ -1,20 +1,41 @@
 package com.goimay.service;
 
+import com.goimay.dto.BulkOrderResultDTO;
 import com.goimay.dto.CreateOrderRequest;
+import com.goimay.dto.CursorPage;
 import com.goimay.dto.OrderDTO;
 import com.goimay.dto.OrderItemDTO;
+import com.goimay.dto.OrderSummaryDTO;
 import com.goimay.model.*;
+import com.goimay.repository.ArchivedOrderItemRepository;
+import com.goimay.repository.ArchivedOrderRepository;
+import com.goimay.repository.OrderItemBatchRepository;
 import com.goimay.repository.OrderRepository;
 import com.goimay.repository.ProductRepository;
 import com.goimay.repository.UserRepository;
+import com.goimay.repository.projection.OrderSummary;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -22,8 +43,22 @@ import java.util.stream.Collectors;
 public class OrderService {
 
     private final OrderRepository orderRepository;
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final ArchivedOrderItemRepository archivedOrderItemRepository;
     private final UserRepository userRepository;
     private final ProductRepository productRepository;
+    private final OrderItemBatchRepository orderItemBatchRepository;
+    private final OrderIdGenerator orderIdGenerator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SalesRollupService salesRollupService;
+    private final StockReservations stockReservations;
+    private final StockHoldService stockHoldService;
+
+    // Cận mặc định khi không lọc theo ngày, để điều kiện createdAt luôn là một khoảng trên index.
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(2000, 1, 1, 0, 0);
+    private static final LocalDateTime LATEST = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    private static final int MAX_BULK_ORDERS = 200;
 
     private static final DateTimeFormatter DT = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm", new Locale("vi", "VN"));
 
@@ -31,7 +66,57 @@ public class OrderService {
     public OrderDTO createOrder(String email, CreateOrderRequest request) {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found"));
+        Order order = newOrder(user, request);
+        Map<Long, Product> products = loadOrderableProducts(request.getItems());
+        List<OrderItem> items = buildItems(order, request, products);
+
+        Map<Long, Integer> held = isBlank(request.getHoldId())
+                ? Map.of()
+                : stockHoldService.consumeHold(user.getId(), request.getHoldId());
+        order.setStockReserved(reserveStock(items, products, held));
+
+        // Dòng orders phải có trước (khóa ngoại), sau đó chèn toàn bộ order_items trong một batch.
+        Order saved = orderRepository.saveAndFlush(order);
+        orderItemBatchRepository.insertAll(saved.getId(), items);
+        salesRollupService.recordOrderCreated(saved, items);
+        eventPublisher.publishEvent(OrderEvent.created(saved));
+        return toDTO(saved, items);
+    }
 
+    /**
+     * Chế độ ghi theo lô (OrderIngestionPipeline): kiểm tra, tính giá, cấp mã đơn và giữ hàng trên bộ đếm trong bộ nhớ
+     * như createOrder nhưng không ghi gì; luồng ghi sẽ trừ products.stock và chèn đơn cùng các đơn khác.
+     */
+    @Transactional(readOnly = true)
+    public OrderIngestionPipeline.Prepared prepareOrder(String email, CreateOrderRequest request) {
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        Order order = newOrder(user, request);
+        Map<Long, Product> products = loadOrderableProducts(request.getItems());
+        List<OrderItem> items = buildItems(order, request, products);
+
+        Map<Long, Integer> quantities = new HashMap<>();
+        Map<Long, Integer> currentStock = new HashMap<>();
+        Map<Long, String> names = new HashMap<>();
+        for (OrderItem item : items) {
+            Product product = products.get(item.getProductId());
+            if (product.getStock() != null) {
+                quantities.merge(product.getId(), item.getQuantity(), Integer::sum);
+                currentStock.put(product.getId(), product.getStock());
+                names.put(product.getId(), product.getName());
+            }
+        }
+        StockReservations.Reservation reservation = stockReservations.acquire(quantities, currentStock, names);
+
+        LocalDateTime now = LocalDateTime.now();
+        order.setCreatedAt(now);
+        order.setUpdatedAt(now);
+        order.setStockReserved(!quantities.isEmpty());
+        IngestedOrder ingested = IngestedOrder.of(order, user.getId(), items, quantities.keySet());
+        return new OrderIngestionPipeline.Prepared(ingested, toDTO(order, items), reservation);
+    }
+
+    private Order newOrder(User user, CreateOrderRequest request) {
         if (request.getItems() == null || request.getItems().isEmpty()) {
             throw new RuntimeException("Giỏ hàng trống");
         }
@@ -40,7 +125,7 @@ public class OrderService {
         }
 
         Order order = new Order();
-        order.setId(generateOrderId());
+        order.setId(orderIdGenerator.nextId());
         order.setUser(user);
         order.setStatus(OrderStatus.CHO_XAC_NHAN);
         order.setPaymentMethod(parsePayment(request.getPaymentMethod()));
@@ -49,15 +134,22 @@ public class OrderService {
         order.setAddress(request.getAddress().trim());
         order.setEmail(request.getEmail());
         order.setNote(request.getNote());
+        return order;
+    }
 
+    /**
+     * Tạo các dòng đơn theo giá hiện tại và điền tổng tiền/tổng số lượng vào order.
+     */
+    private List<OrderItem> buildItems(Order order, CreateOrderRequest request, Map<Long, Product> products) {
+        List<OrderItem> items = new ArrayList<>(request.getItems().size());
         BigDecimal subtotal = BigDecimal.ZERO;
+        int itemCount = 0;
 
         for (CreateOrderRequest.CreateOrderItemRequest itemReq : request.getItems()) {
             if (itemReq.getProductId() == null) continue;
             int qty = itemReq.getQuantity() == null ? 1 : Math.max(1, itemReq.getQuantity());
 
-            Product product = productRepository.findById(itemReq.getProductId())
-                    .orElseThrow(() -> new RuntimeException("Product not found: " + itemReq.getProductId()));
+            Product product = products.get(itemReq.getProductId());
 
             BigDecimal unitPrice = (product.getSalePrice() != null) ? product.getSalePrice() : product.getPrice();
             BigDecimal lineTotal = unitPrice.multiply(BigDecimal.valueOf(qty));
@@ -72,16 +164,93 @@ public class OrderService {
             item.setQuantity(qty);
             item.setLineTotal(lineTotal);
 
-            order.getItems().add(item);
+            items.add(item);
             subtotal = subtotal.add(lineTotal);
+            itemCount += qty;
         }
 
         order.setSubtotal(subtotal);
         order.setShippingFee(BigDecimal.ZERO);
         order.setTotal(subtotal);
+        order.setItemCount(itemCount);
+        return items;
+    }
 
-        Order saved = orderRepository.save(order);
-        return toDTO(saved);
+    /**
+     * Nạp mọi sản phẩm của giỏ hàng bằng một truy vấn IN và báo lỗi gộp cho các id không tồn tại hoặc đã ngừng bán.
+     */
+    private Map<Long, Product> loadOrderableProducts(List<CreateOrderRequest.CreateOrderItemRequest> lines) {
+        Set<Long> ids = new LinkedHashSet<>();
+        for (CreateOrderRequest.CreateOrderItemRequest line : lines) {
+            if (line.getProductId() != null) {
+                ids.add(line.getProductId());
+            }
+        }
+        if (ids.isEmpty()) {
+            throw new RuntimeException("Giỏ hàng trống");
+        }
+
+        Map<Long, Product> products = new HashMap<>();
+        for (Product product : productRepository.findAllById(ids)) {
+            products.put(product.getId(), product);
+        }
+
+        List<Long> missing = new ArrayList<>();
+        List<String> inactive = new ArrayList<>();
+        for (Long id : ids) {
+            Product product = products.get(id);
+            if (product == null) {
+                missing.add(id);
+            } else if (!product.isActive()) {
+                inactive.add(product.getName());
+            }
+        }
+        if (!missing.isEmpty()) {
+            throw new RuntimeException("Product not found: " + missing.stream().map(String::valueOf).collect(Collectors.joining(", ")));
+        }
+        if (!inactive.isEmpty()) {
+            throw new RuntimeException("Sản phẩm đã ngừng kinh doanh: " + String.join(", ", inactive));
+        }
+        return products;
+    }
+
+    /**
+     * Trừ tồn kho cho các sản phẩm có quản lý tồn kho (stock khác null); thiếu hàng thì ném lỗi và cả đơn rollback.
+     * Phần đã giữ trước (phiên giữ hàng) được tính vào: chỉ trừ thêm phần vượt, phần giữ thừa được trả lại.
+     *
+     * @return true nếu đơn có giữ hàng cần hoàn lại khi hủy
+     */
+    private boolean reserveStock(List<OrderItem> items, Map<Long, Product> products, Map<Long, Integer> held) {
+        Map<Long, Integer> ordered = new HashMap<>();
+        Map<Long, Integer> currentStock = new HashMap<>();
+        Map<Long, String> names = new HashMap<>();
+        for (OrderItem item : items) {
+            Product product = products.get(item.getProductId());
+            if (product.getStock() == null) {
+                continue;
+            }
+            ordered.merge(product.getId(), item.getQuantity(), Integer::sum);
+            currentStock.put(product.getId(), product.getStock());
+            names.put(product.getId(), product.getName());
+        }
+
+        Map<Long, Integer> needed = new HashMap<>();
+        for (Map.Entry<Long, Integer> line : ordered.entrySet()) {
+            int extra = line.getValue() - held.getOrDefault(line.getKey(), 0);
+            if (extra > 0) {
+                needed.put(line.getKey(), extra);
+            }
+        }
+        Map<Long, Integer> surplus = new HashMap<>();
+        for (Map.Entry<Long, Integer> line : held.entrySet()) {
+            int extra = line.getValue() - ordered.getOrDefault(line.getKey(), 0);
+            if (extra > 0) {
+                surplus.put(line.getKey(), extra);
+            }
+        }
+        stockReservations.reserve(needed, currentStock, names);
+        stockReservations.release(surplus);
+        return !ordered.isEmpty();
     }
 
     @Transactional(readOnly = true)
@@ -93,21 +262,56 @@ public class OrderService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Đơn của tôi theo con trỏ (createdAt, id) giảm dần, chỉ đọc OrderSummary; items xem qua getMyOrderById.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<OrderSummaryDTO> getMyOrdersByCursor(String email, String cursor, int size) {
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        int limit = Paging.clampSize(size);
+        Paging.Cursor after = Paging.decodeCursor(cursor);
+        Pageable fetch = PageRequest.of(0, limit + 1);
+        List<OrderSummary> rows = after == null
+                ? orderRepository.findUserSummariesFirstPage(user.getId(), fetch)
+                : orderRepository.findUserSummariesAfter(user.getId(), after.timestamp(), after.id(), fetch);
+        boolean hasNext = rows.size() > limit;
+        List<OrderSummary> content = hasNext ? rows.subList(0, limit) : rows;
+        String nextCursor = null;
+        if (hasNext) {
+            OrderSummary last = content.get(content.size() - 1);
+            nextCursor = Paging.encodeCursor(last.getCreatedAt(), last.getId());
+        }
+        return new CursorPage<>(
+                content.stream().map(this::toSummaryDTO).collect(Collectors.toList()),
+                nextCursor, limit, hasNext);
+    }
+
     @Transactional(readOnly = true)
     public OrderDTO getMyOrderById(String email, String orderId) {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found"));
-        Order order = orderRepository.findByIdAndUser(orderId, user)
-                .orElseThrow(() -> new RuntimeException("Order not found"));
-        return toDTO(order);
+        return orderRepository.findByIdAndUser(orderId, user)
+                .map(this::toDTO)
+                .orElseGet(() -> archivedOrderRepository.findByIdAndUserId(orderId, user.getId())
+                        .map(this::archivedToDTO)
+                        .orElseThrow(() -> new RuntimeException("Order not found")));
     }
 
     @Transactional
     public OrderDTO markReceived(String email, String orderId) {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found"));
-        Order order = orderRepository.findByIdAndUser(orderId, user)
-                .orElseThrow(() -> new RuntimeException("Order not found"));
+        Order order = orderRepository.findByIdAndUser(orderId, user).orElse(null);
+        if (order == null) {
+            // Đơn đã lưu trữ luôn ở trạng thái kết thúc
+            ArchivedOrder archived = archivedOrderRepository.findByIdAndUserId(orderId, user.getId())
+                    .orElseThrow(() -> new RuntimeException("Order not found"));
+            if (archived.getStatus() == OrderStatus.DA_HUY) {
+                throw new RuntimeException("Đơn hàng đã bị hủy");
+            }
+            return archivedToDTO(archived);
+        }
 
         if (order.getStatus() == OrderStatus.DA_HUY) {
             throw new RuntimeException("Đơn hàng đã bị hủy");
@@ -120,44 +324,204 @@ public class OrderService {
         }
 
         order.setStatus(OrderStatus.GIAO_HANG_THANH_CONG);
-        return toDTO(orderRepository.save(order));
+        Order saved = orderRepository.save(order);
+        salesRollupService.recordStatusChange(saved, OrderStatus.DA_XAC_NHAN_DANG_CHUAN_BI);
+        eventPublisher.publishEvent(OrderEvent.statusChanged(saved, OrderStatus.DA_XAC_NHAN_DANG_CHUAN_BI));
+        return toDTO(saved);
     }
 
     // Admin
+    /**
+     * Danh sách đơn phân trang, lọc theo trạng thái, phương thức thanh toán và khoảng ngày [from, to].
+     * Chỉ đọc OrderSummary từ bảng orders; items xem qua {@link #adminGetOrder(String)}.
+     */
     @Transactional(readOnly = true)
-    public List<OrderDTO> adminGetAllOrders() {
-        return orderRepository.findAll().stream()
-                .sorted((a, b) -> b.getCreatedAt().compareTo(a.getCreatedAt()))
+    public Page<OrderSummaryDTO> adminGetOrderSummaries(int page, int size, String status, String paymentMethod,
+                                                        LocalDate from, LocalDate to) {
+        Pageable pageable = PageRequest.of(Paging.clampPage(page), Paging.clampSize(size),
+                Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id")));
+        LocalDateTime fromTime = from != null ? from.atStartOfDay() : EARLIEST;
+        LocalDateTime toTime = to != null ? to.plusDays(1).atStartOfDay() : LATEST;
+        return orderRepository.findSummaries(parseStatusFilter(status), parsePaymentFilter(paymentMethod),
+                        fromTime, toTime, pageable)
+                .map(this::toSummaryDTO);
+    }
+
+    @Transactional(readOnly = true)
+    public OrderDTO adminGetOrder(String orderId) {
+        return orderRepository.findWithItemsById(orderId)
                 .map(this::toDTO)
-                .collect(Collectors.toList());
+                .orElseGet(() -> archivedOrderRepository.findById(orderId)
+                        .map(this::archivedToDTO)
+                        .orElseThrow(() -> new RuntimeException("Order not found")));
     }
 
     @Transactional
     public OrderDTO adminConfirm(String orderId) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new RuntimeException("Order not found"));
-        if (order.getStatus() == OrderStatus.DA_HUY) {
-            throw new RuntimeException("Đơn đã hủy không thể xác nhận");
+        Order order = orderRepository.findById(orderId).orElse(null);
+        if (order == null) {
+            return archivedTransition(orderId, this::confirmRejection);
         }
-        if (order.getStatus() == OrderStatus.GIAO_HANG_THANH_CONG) {
-            throw new RuntimeException("Đơn đã giao thành công");
+        String rejection = confirmRejection(order.getStatus());
+        if (rejection != null) {
+            throw new RuntimeException(rejection);
         }
+        OrderStatus previous = order.getStatus();
         order.setStatus(OrderStatus.DA_XAC_NHAN_DANG_CHUAN_BI);
-        return toDTO(orderRepository.save(order));
+        Order saved = orderRepository.save(order);
+        if (previous != OrderStatus.DA_XAC_NHAN_DANG_CHUAN_BI) {
+            salesRollupService.recordStatusChange(saved, previous);
+            eventPublisher.publishEvent(OrderEvent.statusChanged(saved, previous));
+        }
+        return toDTO(saved);
     }
 
     @Transactional
     public OrderDTO adminCancel(String orderId) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new RuntimeException("Order not found"));
-        if (order.getStatus() == OrderStatus.GIAO_HANG_THANH_CONG) {
-            throw new RuntimeException("Đơn đã giao thành công không thể hủy");
+        Order order = orderRepository.findById(orderId).orElse(null);
+        if (order == null) {
+            return archivedTransition(orderId, this::cancelRejection);
+        }
+        String rejection = cancelRejection(order.getStatus());
+        if (rejection != null) {
+            throw new RuntimeException(rejection);
+        }
+        OrderStatus previous = order.getStatus();
+        if (Boolean.TRUE.equals(order.getStockReserved())) {
+            stockReservations.releaseForOrders(List.of(order.getId()));
+            order.setStockReserved(false);
         }
         order.setStatus(OrderStatus.DA_HUY);
-        return toDTO(orderRepository.save(order));
+        Order saved = orderRepository.save(order);
+        if (previous != OrderStatus.DA_HUY) {
+            salesRollupService.recordStatusChange(saved, previous);
+            eventPublisher.publishEvent(OrderEvent.statusChanged(saved, previous));
+        }
+        return toDTO(saved);
+    }
+
+    @Transactional
+    public BulkOrderResultDTO adminBulkConfirm(List<String> orderIds) {
+        return bulkTransition(orderIds, OrderStatus.DA_XAC_NHAN_DANG_CHUAN_BI, this::confirmRejection);
+    }
+
+    @Transactional
+    public BulkOrderResultDTO adminBulkCancel(List<String> orderIds) {
+        return bulkTransition(orderIds, OrderStatus.DA_HUY, this::cancelRejection);
+    }
+
+    /**
+     * Áp dụng cùng luật chuyển trạng thái như adminConfirm/adminCancel cho nhiều đơn:
+     * một SELECT ... FOR UPDATE để biết trạng thái hiện tại, rồi một UPDATE có điều kiện cho mọi đơn hợp lệ.
+     * Đơn đã ở trạng thái đích được coi là thành công (giống gọi lẻ); đơn không hợp lệ được báo lỗi riêng.
+     */
+    private BulkOrderResultDTO bulkTransition(List<String> orderIds, OrderStatus target,
+                                              Function<OrderStatus, String> rejection) {
+        Set<String> ids = new LinkedHashSet<>();
+        if (orderIds != null) {
+            for (String id : orderIds) {
+                if (!isBlank(id)) {
+                    ids.add(id.trim());
+                }
+            }
+        }
+        if (ids.isEmpty()) {
+            throw new RuntimeException("Danh sách đơn hàng trống");
+        }
+        if (ids.size() > MAX_BULK_ORDERS) {
+            throw new RuntimeException("Tối đa " + MAX_BULK_ORDERS + " đơn mỗi lần");
+        }
+
+        Map<String, Order> orders = new HashMap<>();
+        for (Order order : orderRepository.findAllByIdForUpdate(ids)) {
+            orders.put(order.getId(), order);
+        }
+
+        Set<OrderStatus> eligible = EnumSet.noneOf(OrderStatus.class);
+        for (OrderStatus status : OrderStatus.values()) {
+            if (status != target && rejection.apply(status) == null) {
+                eligible.add(status);
+            }
+        }
+
+        BulkOrderResultDTO result = new BulkOrderResultDTO();
+        List<Order> changing = new ArrayList<>();
+        for (String id : ids) {
+            Order order = orders.get(id);
+            if (order == null) {
+                result.add(new BulkOrderResultDTO.Item(id, false, null, "Order not found"));
+                continue;
+            }
+            String reason = rejection.apply(order.getStatus());
+            if (reason != null) {
+                result.add(new BulkOrderResultDTO.Item(id, false, order.getStatus().name(), reason));
+            } else if (order.getStatus() != target) {
+                changing.add(order);
+            } else {
+                result.add(new BulkOrderResultDTO.Item(id, true, target.name(), null));
+            }
+        }
+        if (changing.isEmpty()) {
+            return result;
+        }
+
+        List<String> changingIds = changing.stream().map(Order::getId).collect(Collectors.toList());
+        orderRepository.updateStatus(changingIds, eligible, target, LocalDateTime.now());
+        if (target == OrderStatus.DA_HUY) {
+            stockReservations.releaseForOrders(changing.stream()
+                    .filter(order -> Boolean.TRUE.equals(order.getStockReserved()))
+                    .map(Order::getId)
+                    .collect(Collectors.toList()));
+        }
+        for (Order order : changing) {
+            // Entity đã detach sau UPDATE hàng loạt; chỉ cập nhật bản trong bộ nhớ để tổng hợp và phát sự kiện.
+            OrderStatus previous = order.getStatus();
+            order.setStatus(target);
+            salesRollupService.recordStatusChange(order, previous);
+            eventPublisher.publishEvent(OrderEvent.statusChanged(order, previous));
+            result.add(new BulkOrderResultDTO.Item(order.getId(), true, target.name(), null));
+        }
+        return result;
+    }
+
+    /**
+     * Đơn đã lưu trữ không đổi trạng thái được: hoặc bị luật chuyển trạng thái từ chối, hoặc đã ở trạng thái đích.
+     */
+    private OrderDTO archivedTransition(String orderId, Function<OrderStatus, String> rejection) {
+        ArchivedOrder archived = archivedOrderRepository.findById(orderId)
+                .orElseThrow(() -> new RuntimeException("Order not found"));
+        String reason = rejection.apply(archived.getStatus());
+        if (reason != null) {
+            throw new RuntimeException(reason);
+        }
+        return archivedToDTO(archived);
+    }
+
+    /**
+     * @return lý do không thể xác nhận đơn ở trạng thái này, hoặc null nếu được phép.
+     */
+    private String confirmRejection(OrderStatus status) {
+        if (status == OrderStatus.DA_HUY) {
+            return "Đơn đã hủy không thể xác nhận";
+        }
+        if (status == OrderStatus.GIAO_HANG_THANH_CONG) {
+            return "Đơn đã giao thành công";
+        }
+        return null;
+    }
+
+    private String cancelRejection(OrderStatus status) {
+        if (status == OrderStatus.GIAO_HANG_THANH_CONG) {
+            return "Đơn đã giao thành công không thể hủy";
+        }
+        return null;
     }
 
     private OrderDTO toDTO(Order order) {
+        return toDTO(order, order.getItems());
+    }
+
+    private OrderDTO toDTO(Order order, List<OrderItem> items) {
         OrderDTO dto = new OrderDTO();
         dto.setId(order.getId());
         dto.setStatus(order.getStatus().name());
@@ -172,7 +536,7 @@ public class OrderService {
         dto.setTotal(order.getTotal());
         dto.setCreatedAt(order.getCreatedAt() != null ? DT.format(order.getCreatedAt()) : null);
         dto.setUpdatedAt(order.getUpdatedAt() != null ? DT.format(order.getUpdatedAt()) : null);
-        dto.setItems(order.getItems().stream().map(it -> {
+        dto.setItems(items.stream().map(it -> {
             OrderItemDTO i = new OrderItemDTO();
             i.setProductId(it.getProductId());
             i.setName(it.getName());
@@ -186,6 +550,74 @@ public class OrderService {
         return dto;
     }
 
+    /**
+     * Dựng Order/OrderItem tạm (không được lưu) từ bản lưu trữ để dùng chung toDTO.
+     */
+    private OrderDTO archivedToDTO(ArchivedOrder archived) {
+        Order order = new Order();
+        order.setId(archived.getId());
+        order.setStatus(archived.getStatus());
+        order.setPaymentMethod(archived.getPaymentMethod());
+        order.setFullName(archived.getFullName());
+        order.setPhone(archived.getPhone());
+        order.setAddress(archived.getAddress());
+        order.setEmail(archived.getEmail());
+        order.setNote(archived.getNote());
+        order.setSubtotal(archived.getSubtotal());
+        order.setShippingFee(archived.getShippingFee());
+        order.setTotal(archived.getTotal());
+        order.setItemCount(archived.getItemCount());
+        order.setCreatedAt(archived.getCreatedAt());
+        order.setUpdatedAt(archived.getUpdatedAt());
+
+        List<OrderItem> items = new ArrayList<>();
+        for (ArchivedOrderItem archivedItem : archivedOrderItemRepository.findByOrderIdOrderByIdAsc(archived.getId())) {
+            OrderItem item = new OrderItem();
+            item.setId(archivedItem.getId());
+            item.setProductId(archivedItem.getProductId());
+            item.setName(archivedItem.getName());
+            item.setSlug(archivedItem.getSlug());
+            item.setThumbnail(archivedItem.getThumbnail());
+            item.setUnitPrice(archivedItem.getUnitPrice());
+            item.setQuantity(archivedItem.getQuantity());
+            item.setLineTotal(archivedItem.getLineTotal());
+            items.add(item);
+        }
+        return toDTO(order, items);
+    }
+
+    private OrderSummaryDTO toSummaryDTO(OrderSummary summary) {
+        OrderSummaryDTO dto = new OrderSummaryDTO();
+        dto.setId(summary.getId());
+        dto.setFullName(summary.getFullName());
+        dto.setPhone(summary.getPhone());
+        dto.setEmail(summary.getEmail());
+        dto.setTotal(summary.getTotal());
+        dto.setStatus(summary.getStatus().name());
+        dto.setPaymentMethod(summary.getPaymentMethod().name());
+        dto.setItemCount(summary.getItemCount());
+        dto.setCreatedAt(summary.getCreatedAt() != null ? DT.format(summary.getCreatedAt()) : null);
+        return dto;
+    }
+
+    private OrderStatus parseStatusFilter(String status) {
+        if (isBlank(status)) return null;
+        try {
+            return OrderStatus.valueOf(status.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Trạng thái đơn không hợp lệ: " + status);
+        }
+    }
+
+    private PaymentMethod parsePaymentFilter(String pm) {
+        if (isBlank(pm)) return null;
+        try {
+            return PaymentMethod.valueOf(pm.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Phương thức thanh toán không hợp lệ: " + pm);
+        }
+    }
+
     private PaymentMethod parsePayment(String pm) {
         if (pm == null) return PaymentMethod.COD;
         try {
@@ -198,12 +630,5 @@ public class OrderService {
     private boolean isBlank(String s) {
         return s == null || s.trim().isEmpty();
     }
-
-    private String generateOrderId() {
-        String ts = Long.toString(System.currentTimeMillis(), 36).toUpperCase();
-        String rand = Long.toString(Math.abs(Double.doubleToLongBits(Math.random())), 36).toUpperCase();
-        rand = rand.length() > 6 ? rand.substring(0, 6) : rand;
-        return "GM-" + ts + "-" + rand;
-    }
 }
 
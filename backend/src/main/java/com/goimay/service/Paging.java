@@ -0,0 +1,56 @@
+package com.goimay.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Giới hạn kích thước trang và mã hóa con trỏ cho phân trang keyset.
+ * Con trỏ là base64url của "timestamp|id" — client chỉ cần gửi lại nguyên văn.
+ */
+public final class Paging {
+
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private Paging() {
+    }
+
+    public static int clampSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+
+    public static int clampPage(int page) {
+        return Math.max(0, page);
+    }
+
+    public static String encodeCursor(LocalDateTime timestamp, Object id) {
+        String raw = timestamp + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return null nếu cursor rỗng (trang đầu tiên)
+     */
+    public static Cursor decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            return new Cursor(LocalDateTime.parse(raw.substring(0, sep)), raw.substring(sep + 1));
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Cursor không hợp lệ");
+        }
+    }
+
+    public record Cursor(LocalDateTime timestamp, String id) {
+        public Long longId() {
+            try {
+                return Long.valueOf(id);
+            } catch (NumberFormatException e) {
+                throw new RuntimeException("Cursor không hợp lệ");
+            }
+        }
+    }
+}
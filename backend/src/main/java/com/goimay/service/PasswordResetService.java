@@ -23,6 +23,7 @@ public class PasswordResetService {
     private final PasswordResetTokenRepository tokenRepository;
     private final EmailService emailService;
     private final PasswordEncoder passwordEncoder;
+    private final UserStateCache userStateCache;
     
     private static final int OTP_LENGTH = 6;
     private static final int OTP_EXPIRY_MINUTES = 5;
@@ -105,6 +106,8 @@ public class PasswordResetService {
         // Update password
         user.setPassword(passwordEncoder.encode(newPassword));
         userRepository.save(user);
+        String email = user.getEmail();
+        AfterCommit.run(() -> userStateCache.evict(email));
         
         // Delete used token
         tokenRepository.delete(token);
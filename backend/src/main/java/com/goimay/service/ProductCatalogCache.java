@@ -0,0 +1,276 @@
+package com.goimay.service;
+
+import com.goimay.dto.ProductDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Cache đọc-xuyên (read-through) trong bộ nhớ cho ProductDTO theo id, theo slug và các trang danh sách.
+ * Mỗi vùng là một LRU có giới hạn; ProductService evict chính xác khi tạo/sửa/xóa sản phẩm.
+ * TTL chỉ là lưới an toàn khi chạy nhiều instance (mỗi instance giữ cache riêng).
+ */
+@Component
+public class ProductCatalogCache {
+
+    private final Region<Long, ProductDTO> byId;
+    private final Region<String, ProductDTO> bySlug;
+    private final Region<String, Object> listings;
+
+    /**
+     * Tăng mỗi lần invalidate; một lần nạp chỉ được ghi vào cache nếu generation không đổi trong lúc nạp,
+     * tránh ghi đè dữ liệu cũ sau khi sản phẩm vừa bị sửa.
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Tăng khi chỉ tồn kho đổi (evictStock): chặn ghi lại ProductDTO/trang quản trị nạp trước lúc đổi,
+     * nhưng không đụng generation nên trang danh sách công khai và phiên bản ETag vẫn được giữ.
+     */
+    private final AtomicLong stockGeneration = new AtomicLong();
+
+    /** Tiền tố khóa của trang danh sách quản trị: trang này trả ProductDTO có stock nên phải evict cùng tồn kho. */
+    public static final String ADMIN_LISTING_PREFIX = "admin:";
+
+    public ProductCatalogCache(
+            @Value("${app.cache.products.max-entries:1000}") int maxEntries,
+            @Value("${app.cache.products.max-listings:200}") int maxListings,
+            @Value("${app.cache.products.ttl-seconds:600}") long ttlSeconds) {
+        long ttlMillis = ttlSeconds * 1000L;
+        this.byId = new Region<>(maxEntries, ttlMillis);
+        this.bySlug = new Region<>(maxEntries, ttlMillis);
+        this.listings = new Region<>(maxListings, ttlMillis);
+    }
+
+    public ProductDTO getById(Long id, Supplier<ProductDTO> loader) {
+        long gen = generation.get();
+        long stockGen = stockGeneration.get();
+        ProductDTO cached = byId.get(id);
+        if (cached != null) {
+            return cached;
+        }
+        ProductDTO loaded = loader.get();
+        if (loaded != null && generation.get() == gen && stockGeneration.get() == stockGen) {
+            byId.put(id, loaded);
+            if (loaded.getSlug() != null) {
+                bySlug.put(loaded.getSlug(), loaded);
+            }
+        }
+        return loaded;
+    }
+
+    public ProductDTO getBySlug(String slug, Supplier<ProductDTO> loader) {
+        long gen = generation.get();
+        long stockGen = stockGeneration.get();
+        ProductDTO cached = bySlug.get(slug);
+        if (cached != null) {
+            return cached;
+        }
+        ProductDTO loaded = loader.get();
+        if (loaded != null && generation.get() == gen && stockGeneration.get() == stockGen) {
+            bySlug.put(slug, loaded);
+            if (loaded.getId() != null) {
+                byId.put(loaded.getId(), loaded);
+            }
+        }
+        return loaded;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T getListing(String key, Supplier<T> loader) {
+        long gen = generation.get();
+        long stockGen = stockGeneration.get();
+        Object cached = listings.get(key);
+        if (cached != null) {
+            return (T) cached;
+        }
+        T loaded = loader.get();
+        boolean stockFresh = !key.startsWith(ADMIN_LISTING_PREFIX) || stockGeneration.get() == stockGen;
+        if (loaded != null && generation.get() == gen && stockFresh) {
+            listings.put(key, loaded);
+        }
+        return loaded;
+    }
+
+    /**
+     * Evict một sản phẩm (id + các slug cũ/mới) và toàn bộ trang danh sách, vì bất kỳ trang nào cũng có thể chứa nó.
+     * Nếu đang trong transaction thì evict thêm một lần sau commit, để lượt đọc chen giữa không giữ lại bản cũ.
+     */
+    public void evictProduct(Long id, String... slugs) {
+        evictNow(id, slugs);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictNow(id, slugs);
+                }
+            });
+        }
+    }
+
+    /**
+     * Chỉ tồn kho đổi (đặt/hủy đơn, admin nhập/xuất kho): evict ProductDTO của các sản phẩm và trang quản trị.
+     * Trang danh sách công khai, kết quả tìm kiếm và phiên bản ETag không chứa stock nên được giữ nguyên,
+     * để một đợt flash sale không xóa cache danh mục sau mỗi đơn. Cũng evict lại sau commit như evictProduct.
+     */
+    public void evictStock(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        evictStockNow(ids);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictStockNow(ids);
+                }
+            });
+        }
+    }
+
+    private void evictStockNow(Collection<Long> ids) {
+        stockGeneration.incrementAndGet();
+        for (Long id : ids) {
+            ProductDTO previous = byId.remove(id);
+            if (previous != null && previous.getSlug() != null) {
+                bySlug.remove(previous.getSlug());
+            }
+        }
+        listings.removeIf(key -> key.startsWith(ADMIN_LISTING_PREFIX));
+    }
+
+    private void evictNow(Long id, String... slugs) {
+        generation.incrementAndGet();
+        if (id != null) {
+            ProductDTO previous = byId.remove(id);
+            if (previous != null && previous.getSlug() != null) {
+                bySlug.remove(previous.getSlug());
+            }
+        }
+        for (String slug : slugs) {
+            if (slug != null) {
+                bySlug.remove(slug);
+            }
+        }
+        listings.clear();
+    }
+
+    public void evictListings() {
+        generation.incrementAndGet();
+        listings.clear();
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        byId.clear();
+        bySlug.clear();
+        listings.clear();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("byId", byId.stats());
+        stats.put("bySlug", bySlug.stats());
+        stats.put("listings", listings.stats());
+        return stats;
+    }
+
+    /**
+     * LRU có giới hạn + TTL, đồng bộ bằng monitor của chính nó (đủ nhanh cho vài nghìn entry).
+     */
+    private static final class Region<K, V> {
+
+        private final int maxEntries;
+        private final long ttlMillis;
+        private final LinkedHashMap<K, CachedValue<V>> map;
+
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+        private final AtomicLong evictions = new AtomicLong();
+        private final AtomicLong invalidations = new AtomicLong();
+
+        Region(int maxEntries, long ttlMillis) {
+            this.maxEntries = maxEntries;
+            this.ttlMillis = ttlMillis;
+            this.map = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<K, CachedValue<V>> eldest) {
+                    if (size() > Region.this.maxEntries) {
+                        evictions.incrementAndGet();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        synchronized V get(K key) {
+            CachedValue<V> entry = map.get(key);
+            if (entry == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+            if (ttlMillis > 0 && System.currentTimeMillis() - entry.createdAt > ttlMillis) {
+                map.remove(key);
+                evictions.incrementAndGet();
+                misses.incrementAndGet();
+                return null;
+            }
+            hits.incrementAndGet();
+            return entry.value;
+        }
+
+        synchronized void put(K key, V value) {
+            if (maxEntries <= 0) {
+                return;
+            }
+            map.put(key, new CachedValue<>(value, System.currentTimeMillis()));
+        }
+
+        synchronized V remove(K key) {
+            CachedValue<V> entry = map.remove(key);
+            if (entry == null) {
+                return null;
+            }
+            invalidations.incrementAndGet();
+            return entry.value;
+        }
+
+        synchronized void removeIf(Predicate<K> matches) {
+            map.keySet().removeIf(key -> {
+                if (matches.test(key)) {
+                    invalidations.incrementAndGet();
+                    return true;
+                }
+                return false;
+            });
+        }
+
+        synchronized void clear() {
+            invalidations.addAndGet(map.size());
+            map.clear();
+        }
+
+        synchronized Map<String, Object> stats() {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("size", map.size());
+            stats.put("maxEntries", maxEntries);
+            stats.put("hits", hits.get());
+            stats.put("misses", misses.get());
+            stats.put("evictions", evictions.get());
+            stats.put("invalidations", invalidations.get());
+            return stats;
+        }
+    }
+
+    private record CachedValue<V>(V value, long createdAt) {
+    }
+}
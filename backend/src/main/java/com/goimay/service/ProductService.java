@@ -1,8 +1,18 @@
 package com.goimay.service;
 
+import com.goimay.dto.CursorPage;
 import com.goimay.dto.ProductDTO;
+import com.goimay.dto.ProductListItemDTO;
+import com.goimay.dto.ProductSearchPage;
+import com.goimay.dto.SuggestionDTO;
 import com.goimay.model.Product;
+import com.goimay.repository.ProductImageRepository;
 import com.goimay.repository.ProductRepository;
+import com.goimay.repository.projection.ProductImageUrl;
+import com.goimay.repository.projection.ProductSummary;
+import com.goimay.search.ProductSearchIndex;
+import com.goimay.search.ProductSearchResult;
+import com.goimay.search.SuggestIndex;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -11,8 +21,12 @@ import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -20,57 +34,187 @@ import java.util.stream.Collectors;
 public class ProductService {
     
     private final ProductRepository productRepository;
+    private final ProductImageRepository productImageRepository;
+    private final ProductCatalogCache productCatalogCache;
+    private final ProductSearchIndex productSearchIndex;
+    private final SuggestIndex suggestIndex;
+    private final StockReservations stockReservations;
     
-    public Page<ProductDTO> getAllProducts(int page, int size, boolean includeInactive) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-        if (includeInactive) {
-            return productRepository.findAll(pageable).map(this::convertToDTO);
+    /** Cận trên mặc định khi chỉ có minPrice, đủ lớn để BETWEEN vẫn là một range scan trên index giá. */
+    private static final BigDecimal MAX_PRICE = new BigDecimal("999999999999");
+    
+    /**
+     * Lưới sản phẩm công khai: chỉ đọc các cột trong ProductSummary.
+     */
+    public Page<ProductListItemDTO> getAllProducts(int page, int size) {
+        return getAllProducts(page, size, null, null, null);
+    }
+    
+    /**
+     * Lọc theo khoảng giá hiệu lực và sắp xếp (newest | price_asc | price_desc) trên cột effective_price có index.
+     * Không lọc giá và sắp theo mới nhất thì đi đường cũ.
+     */
+    public Page<ProductListItemDTO> getAllProducts(int page, int size, BigDecimal minPrice, BigDecimal maxPrice, String sort) {
+        if (isDefaultListing(minPrice, maxPrice, sort)) {
+            return getNewestProducts(page, size);
         }
-        return productRepository.findByActiveTrue(pageable).map(this::convertToDTO);
+        Pageable pageable = PageRequest.of(Paging.clampPage(page), Paging.clampSize(size), productSort(sort));
+        BigDecimal min = minPrice != null ? minPrice : BigDecimal.ZERO;
+        BigDecimal max = maxPrice != null ? maxPrice : MAX_PRICE;
+        return productCatalogCache.getListing("price:" + min + ":" + max + ":" + sort + ":" + pageable.getPageNumber() + ":" + pageable.getPageSize(),
+                () -> productRepository.findActiveSummariesByPrice(min, max, pageable).map(this::toListItem));
+    }
+    
+    private Page<ProductListItemDTO> getNewestProducts(int page, int size) {
+        Pageable pageable = PageRequest.of(Paging.clampPage(page), Paging.clampSize(size), Sort.by("createdAt").descending());
+        return productCatalogCache.getListing("all:" + pageable.getPageNumber() + ":" + pageable.getPageSize(),
+                () -> productRepository.findActiveSummaries(pageable).map(this::toListItem));
+    }
+    
+    /**
+     * Danh sách cho trang quản trị (gồm cả sản phẩm ẩn) cần đầy đủ ProductDTO để sửa.
+     */
+    public Page<ProductDTO> getAllProductsForAdmin(int page, int size) {
+        Pageable pageable = PageRequest.of(Paging.clampPage(page), Paging.clampSize(size), Sort.by("createdAt").descending());
+        return productCatalogCache.getListing(ProductCatalogCache.ADMIN_LISTING_PREFIX + pageable.getPageNumber() + ":" + pageable.getPageSize(),
+                () -> convertPage(productRepository.findAll(pageable)));
     }
     
-    public Page<ProductDTO> getProductsByCategory(String category, int page, int size) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-        return productRepository.findByProductCategoryAndActiveTrue(category, pageable)
-                .map(this::convertToDTO);
+    /**
+     * Phân trang keyset theo (createdAt, id) giảm dần, không chạy COUNT(*) và không phụ thuộc độ sâu trang.
+     */
+    public CursorPage<ProductListItemDTO> getProductsByCursor(String cursor, int size) {
+        int limit = Paging.clampSize(size);
+        Paging.Cursor after = Paging.decodeCursor(cursor);
+        return productCatalogCache.getListing("cursor:" + (after == null ? "" : cursor.trim()) + ":" + limit, () -> {
+            Pageable fetch = PageRequest.of(0, limit + 1);
+            List<ProductSummary> rows = after == null
+                    ? productRepository.findActiveSummariesFirstPage(fetch)
+                    : productRepository.findActiveSummariesAfter(after.timestamp(), after.longId(), fetch);
+            boolean hasNext = rows.size() > limit;
+            List<ProductSummary> content = hasNext ? rows.subList(0, limit) : rows;
+            String nextCursor = null;
+            if (hasNext) {
+                ProductSummary last = content.get(content.size() - 1);
+                nextCursor = Paging.encodeCursor(last.getCreatedAt(), last.getId());
+            }
+            return new CursorPage<>(
+                    content.stream().map(this::toListItem).collect(Collectors.toList()),
+                    nextCursor, limit, hasNext);
+        });
+    }
+    
+    public Page<ProductListItemDTO> getProductsByCategory(String category, int page, int size) {
+        return getProductsByCategory(category, page, size, null, null, null);
+    }
+    
+    public Page<ProductListItemDTO> getProductsByCategory(String category, int page, int size,
+                                                          BigDecimal minPrice, BigDecimal maxPrice, String sort) {
+        if (isDefaultListing(minPrice, maxPrice, sort)) {
+            Pageable pageable = PageRequest.of(Paging.clampPage(page), Paging.clampSize(size), Sort.by("createdAt").descending());
+            return productCatalogCache.getListing("category:" + category + ":" + pageable.getPageNumber() + ":" + pageable.getPageSize(),
+                    () -> productRepository.findActiveSummariesByCategory(category, pageable).map(this::toListItem));
+        }
+        Pageable pageable = PageRequest.of(Paging.clampPage(page), Paging.clampSize(size), productSort(sort));
+        BigDecimal min = minPrice != null ? minPrice : BigDecimal.ZERO;
+        BigDecimal max = maxPrice != null ? maxPrice : MAX_PRICE;
+        return productCatalogCache.getListing("category-price:" + category + ":" + min + ":" + max + ":" + sort + ":" + pageable.getPageNumber() + ":" + pageable.getPageSize(),
+                () -> productRepository.findActiveSummariesByCategoryAndPrice(category, min, max, pageable).map(this::toListItem));
+    }
+    
+    private static boolean isDefaultListing(BigDecimal minPrice, BigDecimal maxPrice, String sort) {
+        return minPrice == null && maxPrice == null && (sort == null || sort.isEmpty() || "newest".equals(sort));
+    }
+    
+    private static Sort productSort(String sort) {
+        if (sort == null || sort.isEmpty() || "newest".equals(sort)) {
+            return Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id"));
+        }
+        if ("price_asc".equals(sort)) {
+            return Sort.by(Sort.Order.asc("effectivePrice"), Sort.Order.asc("id"));
+        }
+        if ("price_desc".equals(sort)) {
+            return Sort.by(Sort.Order.desc("effectivePrice"), Sort.Order.desc("id"));
+        }
+        throw new RuntimeException("Sort không hợp lệ: " + sort + " (newest, price_asc, price_desc)");
     }
     
     public ProductDTO getProductBySlug(String slug) {
-        Product product = productRepository.findBySlug(slug)
-                .orElseThrow(() -> new RuntimeException("Product not found: " + slug));
-        return convertToDTO(product);
+        return productCatalogCache.getBySlug(slug, () -> {
+            Product product = productRepository.findBySlug(slug)
+                    .orElseThrow(() -> new RuntimeException("Product not found: " + slug));
+            return convertToDTO(product);
+        });
     }
     
     public ProductDTO getProductById(Long id) {
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Product not found: " + id));
-        return convertToDTO(product);
+        return productCatalogCache.getById(id, () -> {
+            Product product = productRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Product not found: " + id));
+            return convertToDTO(product);
+        });
     }
     
-    public List<ProductDTO> getSaleProducts() {
-        return productRepository.findBySalePriceNotNullAndActiveTrue()
+    public List<ProductListItemDTO> getSaleProducts() {
+        return productCatalogCache.getListing("sale", () -> productRepository.findSaleSummaries()
                 .stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+                .map(this::toListItem)
+                .collect(Collectors.toList()));
+    }
+    
+    public List<SuggestionDTO> suggestProducts(String prefix, int limit) {
+        return suggestIndex.suggestProducts(prefix, limit);
     }
     
-    public Page<ProductDTO> searchProducts(String keyword, int page, int size) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-        return productRepository.searchProducts(keyword, null, pageable).map(this::convertToDTO);
+    public ProductSearchPage<ProductListItemDTO> searchProducts(String keyword, int page, int size) {
+        return searchProducts(keyword, null, page, size);
     }
 
-    public Page<ProductDTO> searchProducts(String keyword, String category, int page, int size) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-        return productRepository.searchProducts(keyword, category, pageable).map(this::convertToDTO);
+    /**
+     * Tìm bằng chỉ mục trong bộ nhớ (bỏ dấu, BM25) kèm facet danh mục/khoảng giá;
+     * không có kết quả thì thử lại với truy vấn đã sửa lỗi chính tả và trả kèm didYouMean.
+     * Truy vấn LIKE của JPA chỉ dùng khi chỉ mục chưa dựng xong (khi đó không có facet).
+     */
+    public ProductSearchPage<ProductListItemDTO> searchProducts(String keyword, String category, int page, int size) {
+        Pageable pageable = PageRequest.of(Paging.clampPage(page), Paging.clampSize(size), Sort.by("createdAt").descending());
+        if (productSearchIndex.isReady()) {
+            ProductSearchResult result = productSearchIndex.search(keyword, category);
+            String didYouMean = null;
+            if (result.hits().isEmpty()) {
+                String corrected = productSearchIndex.correct(keyword);
+                if (corrected != null) {
+                    ProductSearchResult fuzzy = productSearchIndex.search(corrected, category);
+                    if (!fuzzy.hits().isEmpty()) {
+                        result = fuzzy;
+                        didYouMean = corrected;
+                    }
+                }
+            }
+            List<ProductListItemDTO> hits = result.hits();
+            int from = (int) Math.min(pageable.getOffset(), hits.size());
+            int to = Math.min(from + pageable.getPageSize(), hits.size());
+            return new ProductSearchPage<>(hits.subList(from, to), pageable, hits.size(), result.facets(), didYouMean);
+        }
+        return productCatalogCache.getListing("search:" + keyword + ":" + category + ":" + pageable.getPageNumber() + ":" + pageable.getPageSize(),
+                () -> {
+                    Page<ProductListItemDTO> found = productRepository.searchSummaries(keyword, category, pageable).map(this::toListItem);
+                    return new ProductSearchPage<>(found.getContent(), pageable, found.getTotalElements(), null, null);
+                });
     }
     
     @Transactional
     public ProductDTO createProduct(ProductDTO dto) {
         Product product = new Product();
         updateProductFromDTO(product, dto);
+        product.setStock(dto.getStock());
         product.setActive(true);
         
         Product saved = productRepository.save(product);
+        productCatalogCache.evictProduct(saved.getId(), saved.getSlug());
+        AfterCommit.run(() -> {
+            productSearchIndex.upsert(saved);
+            suggestIndex.rebuildProducts();
+        });
         return convertToDTO(saved);
     }
     
@@ -78,15 +222,45 @@ public class ProductService {
     public ProductDTO updateProduct(Long id, ProductDTO dto) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Product not found: " + id));
+        String previousSlug = product.getSlug();
         
         updateProductFromDTO(product, dto);
         Product saved = productRepository.save(product);
+        productCatalogCache.evictProduct(id, previousSlug, saved.getSlug());
+        AfterCommit.run(() -> {
+            productSearchIndex.upsert(saved);
+            suggestIndex.rebuildProducts();
+        });
         return convertToDTO(saved);
     }
     
     @Transactional
     public void deleteProduct(Long id) {
+        String slug = productRepository.findById(id).map(Product::getSlug).orElse(null);
         productRepository.deleteById(id);
+        productCatalogCache.evictProduct(id, slug);
+        stockReservations.invalidate(id);
+        AfterCommit.run(() -> {
+            productSearchIndex.remove(id);
+            suggestIndex.rebuildProducts();
+        });
+    }
+    
+    /**
+     * Nhập/xuất kho theo lượng thay đổi (dto.stock của PUT /api/products/{id} bị bỏ qua: ghi đè tuyệt đối sẽ xóa mất
+     * phần đơn vừa trừ giữa lúc admin mở form và lúc lưu).
+     */
+    @Transactional
+    public ProductDTO adjustStock(Long id, int delta) {
+        if (!productRepository.existsById(id)) {
+            throw new RuntimeException("Product not found: " + id);
+        }
+        if (delta != 0 && !stockReservations.adjust(id, delta)) {
+            throw new RuntimeException("Tồn kho không đủ để giảm " + (-delta));
+        }
+        return productRepository.findById(id)
+                .map(this::convertToDTO)
+                .orElseThrow(() -> new RuntimeException("Product not found: " + id));
     }
     
     private void updateProductFromDTO(Product product, ProductDTO dto) {
@@ -97,11 +271,11 @@ public class ProductService {
         product.setSalePrice(dto.getSalePrice());
         product.setThumbnail(dto.getThumbnail());
         product.setProductCategory(dto.getProductCategory());
-        product.setStock(dto.getStock());
         product.setActive(dto.isActive());
 
         // Sync multiple images if provided
         if (dto.getImages() != null) {
+            product.touch();
             product.getImages().clear();
             List<String> urls = dto.getImages().stream()
                     .filter(u -> u != null && !u.trim().isEmpty())
@@ -124,7 +298,46 @@ public class ProductService {
         }
     }
     
+    /**
+     * Nạp ảnh của cả trang trong một truy vấn thay vì duyệt product.getImages() từng dòng (N+1).
+     */
+    private Page<ProductDTO> convertPage(Page<Product> page) {
+        Map<Long, List<String>> imagesByProduct = loadImageUrls(page.getContent());
+        return page.map(p -> convertToDTO(p, imagesByProduct.getOrDefault(p.getId(), Collections.emptyList())));
+    }
+
+    private Map<Long, List<String>> loadImageUrls(List<Product> products) {
+        if (products.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        List<Long> ids = products.stream().map(Product::getId).collect(Collectors.toList());
+        Map<Long, List<String>> result = new HashMap<>();
+        for (ProductImageUrl row : productImageRepository.findUrlsByProductIds(ids)) {
+            result.computeIfAbsent(row.getProductId(), k -> new ArrayList<>()).add(row.getUrl());
+        }
+        return result;
+    }
+
+    private ProductListItemDTO toListItem(ProductSummary summary) {
+        return new ProductListItemDTO(
+                summary.getId(),
+                summary.getName(),
+                summary.getSlug(),
+                summary.getPrice(),
+                summary.getSalePrice(),
+                summary.getThumbnail(),
+                summary.getProductCategory()
+        );
+    }
+
     private ProductDTO convertToDTO(Product product) {
+        List<String> urls = product.getImages() == null
+                ? Collections.emptyList()
+                : product.getImages().stream().map(img -> img.getUrl()).collect(Collectors.toList());
+        return convertToDTO(product, urls);
+    }
+
+    private ProductDTO convertToDTO(Product product, List<String> imageUrls) {
         ProductDTO dto = new ProductDTO();
         dto.setId(product.getId());
         dto.setName(product.getName());
@@ -137,13 +350,9 @@ public class ProductService {
         dto.setStock(product.getStock());
         dto.setActive(product.isActive());
 
-        List<String> images = new ArrayList<>();
-        if (product.getImages() != null) {
-            images.addAll(product.getImages().stream()
-                    .map(img -> img.getUrl())
-                    .filter(u -> u != null && !u.trim().isEmpty())
-                    .collect(Collectors.toList()));
-        }
+        List<String> images = imageUrls.stream()
+                .filter(u -> u != null && !u.trim().isEmpty())
+                .collect(Collectors.toCollection(ArrayList::new));
         // Fallback: if no images stored, at least return thumbnail as 1st image for gallery
         if (images.isEmpty() && product.getThumbnail() != null && !product.getThumbnail().trim().isEmpty()) {
             images.add(product.getThumbnail().trim());
@@ -152,4 +361,3 @@ public class ProductService {
         return dto;
     }
 }
-
@@ -0,0 +1,214 @@
+package com.goimay.service;
+
+import com.goimay.dto.SalesBucketDTO;
+import com.goimay.model.Order;
+import com.goimay.model.OrderItem;
+import com.goimay.model.OrderStatus;
+import com.goimay.model.RollupDimension;
+import com.goimay.model.RollupGranularity;
+import com.goimay.model.SalesRollup;
+import com.goimay.repository.SalesRollupRepository;
+import com.goimay.repository.SalesRollupWriter;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tổng hợp doanh số theo giờ và theo ngày.
+ * <p>
+ * Không ghi trong transaction đặt đơn: mọi đơn cùng giờ đều cộng vào cùng các dòng TOTAL/PAYMENT_METHOD, nên upsert
+ * ngay trong transaction sẽ giữ khóa dòng nóng tới commit và xếp hàng mọi checkout. Delta chỉ được gộp vào bộ đệm
+ * trong bộ nhớ sau commit, rồi flush() ghi một batch mỗi app.analytics.rollup.flush-ms. Đổi lại, số liệu trễ tối đa
+ * một chu kỳ và phần chưa flush bị mất nếu tiến trình chết đột ngột (tắt bình thường vẫn flush).
+ * <p>
+ * TOTAL, PAYMENT_METHOD và PRODUCT tính theo đơn đã đặt (gồm cả đơn bị hủy sau đó);
+ * STATUS phản ánh trạng thái hiện tại nên doanh thu thuần = TOTAL - STATUS[DA_HUY].
+ * Mọi đơn được tính vào ô của thời điểm tạo đơn, kể cả khi đổi trạng thái về sau.
+ * Chỉ có dữ liệu từ khi tính năng này chạy; đơn cũ hơn không được tổng hợp lại.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SalesRollupService {
+
+    private static final int MAX_HOUR_BUCKETS = 24 * 31;
+    private static final int MAX_DAY_BUCKETS = 366;
+
+    private static final Comparator<SalesRollupWriter.Delta> CELL_ORDER = Comparator
+            .comparing(SalesRollupWriter.Delta::granularity)
+            .thenComparing(SalesRollupWriter.Delta::bucketStart)
+            .thenComparing(SalesRollupWriter.Delta::dimension)
+            .thenComparing(SalesRollupWriter.Delta::dimensionKey);
+
+    private final SalesRollupRepository salesRollupRepository;
+    private final SalesRollupWriter salesRollupWriter;
+
+    /** Delta đã commit nhưng chưa ghi, gộp theo ô; đổi cả map dưới bufferLock khi flush. */
+    private final Object bufferLock = new Object();
+    private Map<Cell, SalesRollupWriter.Delta> pending = new HashMap<>();
+
+    public void recordOrderCreated(Order order, List<OrderItem> items) {
+        long units = order.getItemCount() != null ? order.getItemCount() : 0;
+        Map<Long, SalesBucketDTO.Metrics> byProduct = new LinkedHashMap<>();
+        for (OrderItem item : items) {
+            SalesBucketDTO.Metrics metrics = byProduct.computeIfAbsent(item.getProductId(),
+                    id -> new SalesBucketDTO.Metrics(1, BigDecimal.ZERO, 0));
+            metrics.setRevenue(metrics.getRevenue().add(item.getLineTotal()));
+            metrics.setUnits(metrics.getUnits() + item.getQuantity());
+        }
+
+        List<SalesRollupWriter.Delta> deltas = new ArrayList<>();
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            LocalDateTime bucket = bucketStart(granularity, order.getCreatedAt());
+            deltas.add(delta(granularity, bucket, RollupDimension.TOTAL, "", 1, order.getTotal(), units));
+            deltas.add(delta(granularity, bucket, RollupDimension.PAYMENT_METHOD, order.getPaymentMethod().name(),
+                    1, order.getTotal(), units));
+            deltas.add(delta(granularity, bucket, RollupDimension.STATUS, order.getStatus().name(),
+                    1, order.getTotal(), units));
+            for (Map.Entry<Long, SalesBucketDTO.Metrics> product : byProduct.entrySet()) {
+                SalesBucketDTO.Metrics metrics = product.getValue();
+                deltas.add(delta(granularity, bucket, RollupDimension.PRODUCT, String.valueOf(product.getKey()),
+                        1, metrics.getRevenue(), metrics.getUnits()));
+            }
+        }
+        write(deltas);
+    }
+
+    public void recordStatusChange(Order order, OrderStatus previous) {
+        if (previous == null || previous == order.getStatus()) {
+            return;
+        }
+        long units = order.getItemCount() != null ? order.getItemCount() : 0;
+        List<SalesRollupWriter.Delta> deltas = new ArrayList<>();
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            LocalDateTime bucket = bucketStart(granularity, order.getCreatedAt());
+            deltas.add(delta(granularity, bucket, RollupDimension.STATUS, previous.name(),
+                    -1, order.getTotal().negate(), -units));
+            deltas.add(delta(granularity, bucket, RollupDimension.STATUS, order.getStatus().name(),
+                    1, order.getTotal(), units));
+        }
+        write(deltas);
+    }
+
+    /**
+     * Đọc các ô trong [from, to] (theo ngày, gồm cả hai đầu); chi phí chỉ phụ thuộc số ô, không phụ thuộc số đơn.
+     */
+    @Transactional(readOnly = true)
+    public List<SalesBucketDTO> getSales(String granularity, LocalDate from, LocalDate to) {
+        RollupGranularity g = parseGranularity(granularity);
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : (g == RollupGranularity.DAY ? end.minusDays(29) : end);
+        if (start.isAfter(end)) {
+            throw new RuntimeException("Khoảng ngày không hợp lệ");
+        }
+        LocalDateTime fromTime = start.atStartOfDay();
+        LocalDateTime toTime = end.plusDays(1).atStartOfDay();
+        long buckets = g == RollupGranularity.DAY
+                ? ChronoUnit.DAYS.between(fromTime, toTime)
+                : ChronoUnit.HOURS.between(fromTime, toTime);
+        int max = g == RollupGranularity.DAY ? MAX_DAY_BUCKETS : MAX_HOUR_BUCKETS;
+        if (buckets > max) {
+            throw new RuntimeException("Khoảng thời gian quá dài (tối đa " + max + " " + g.name().toLowerCase() + ")");
+        }
+
+        Map<LocalDateTime, SalesBucketDTO> result = new LinkedHashMap<>();
+        for (SalesRollup cell : salesRollupRepository
+                .findByGranularityAndBucketStartGreaterThanEqualAndBucketStartLessThanOrderByBucketStartAsc(g, fromTime, toTime)) {
+            SalesBucketDTO bucket = result.computeIfAbsent(cell.getBucketStart(), b -> new SalesBucketDTO(b.toString()));
+            SalesBucketDTO.Metrics metrics = new SalesBucketDTO.Metrics(cell.getOrderCount(), cell.getRevenue(), cell.getUnits());
+            switch (cell.getDimension()) {
+                case TOTAL -> bucket.setTotal(metrics);
+                case PAYMENT_METHOD -> bucket.getByPaymentMethod().put(cell.getDimensionKey(), metrics);
+                case STATUS -> bucket.getByStatus().put(cell.getDimensionKey(), metrics);
+                case PRODUCT -> bucket.getByProduct().put(cell.getDimensionKey(), metrics);
+            }
+        }
+        return new ArrayList<>(result.values());
+    }
+
+    /**
+     * Ghi các delta đã gộp trong một batch, ngoài mọi transaction đặt đơn. Lỗi thì trả delta về bộ đệm để lần sau ghi lại.
+     */
+    @Scheduled(fixedDelayString = "${app.analytics.rollup.flush-ms:2000}")
+    @PreDestroy
+    public void flush() {
+        Map<Cell, SalesRollupWriter.Delta> batch;
+        synchronized (bufferLock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new HashMap<>();
+        }
+        List<SalesRollupWriter.Delta> deltas = new ArrayList<>(batch.values());
+        deltas.sort(CELL_ORDER);
+        try {
+            salesRollupWriter.addAll(deltas);
+        } catch (RuntimeException e) {
+            log.warn("Could not flush {} sales rollup cells, will retry: {}", deltas.size(), e.getMessage());
+            buffer(deltas);
+        }
+    }
+
+    private void write(List<SalesRollupWriter.Delta> deltas) {
+        AfterCommit.run(() -> buffer(deltas));
+    }
+
+    private void buffer(List<SalesRollupWriter.Delta> deltas) {
+        synchronized (bufferLock) {
+            for (SalesRollupWriter.Delta delta : deltas) {
+                pending.merge(Cell.of(delta), delta, SalesRollupService::sum);
+            }
+        }
+    }
+
+    private static SalesRollupWriter.Delta sum(SalesRollupWriter.Delta a, SalesRollupWriter.Delta b) {
+        return new SalesRollupWriter.Delta(a.granularity(), a.bucketStart(), a.dimension(), a.dimensionKey(),
+                a.orderCount() + b.orderCount(), a.revenue().add(b.revenue()), a.units() + b.units());
+    }
+
+    private record Cell(String granularity, LocalDateTime bucketStart, String dimension, String dimensionKey) {
+        static Cell of(SalesRollupWriter.Delta delta) {
+            return new Cell(delta.granularity(), delta.bucketStart(), delta.dimension(), delta.dimensionKey());
+        }
+    }
+
+    private static SalesRollupWriter.Delta delta(RollupGranularity granularity, LocalDateTime bucket,
+                                                 RollupDimension dimension, String key,
+                                                 long orderCount, BigDecimal revenue, long units) {
+        return new SalesRollupWriter.Delta(granularity.name(), bucket, dimension.name(), key,
+                orderCount, revenue != null ? revenue : BigDecimal.ZERO, units);
+    }
+
+    private static LocalDateTime bucketStart(RollupGranularity granularity, LocalDateTime time) {
+        LocalDateTime at = time != null ? time : LocalDateTime.now();
+        return granularity == RollupGranularity.DAY
+                ? at.truncatedTo(ChronoUnit.DAYS)
+                : at.truncatedTo(ChronoUnit.HOURS);
+    }
+
+    private static RollupGranularity parseGranularity(String granularity) {
+        if (granularity == null || granularity.isBlank()) {
+            return RollupGranularity.DAY;
+        }
+        try {
+            return RollupGranularity.valueOf(granularity.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("granularity phải là HOUR hoặc DAY");
+        }
+    }
+}
@@ -0,0 +1,348 @@
+package com.goimay.service;
+
+import com.goimay.dto.CreateOrderRequest;
+import com.goimay.dto.StockHoldDTO;
+import com.goimay.dto.StockHoldRequest;
+import com.goimay.model.Product;
+import com.goimay.model.StockHold;
+import com.goimay.model.User;
+import com.goimay.repository.ProductRepository;
+import com.goimay.repository.StockHoldRepository;
+import com.goimay.repository.UserRepository;
+import com.goimay.repository.projection.HoldDeadline;
+import com.goimay.repository.projection.HoldUsage;
+import com.goimay.scheduler.HierarchicalTimingWheel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Giữ hàng vài phút cho khách đang chuyển khoản (BANK): tồn kho bị trừ ngay khi tạo phiên, đơn đặt kèm holdId
+ * dùng lại phần đã giữ thay vì trừ lần nữa. Phiên không được dùng tới hạn thì tự cộng trả tồn kho.
+ * <p>
+ * Hạn chót nằm trên một {@link HierarchicalTimingWheel} trong bộ nhớ (không task riêng cho mỗi phiên, không quét DB);
+ * bảng stock_holds là nguồn sự thật và được nạp lại lên bánh xe khi khởi động. Các phiên hết hạn trong cùng một tick
+ * được trả theo lô: một SELECT ... FOR UPDATE, một batch UPDATE products, một DELETE; lô lỗi được xếp lại lên bánh xe
+ * với khoảng chờ tăng dần.
+ * <p>
+ * Mỗi khách chỉ được giữ tối đa max-active-per-user phiên và max-quantity-per-user sản phẩm cùng lúc, để một tài khoản
+ * không khóa được cả kho hàng mở bán.
+ */
+@Service
+@Slf4j
+public class StockHoldService {
+
+    private static final DateTimeFormatter DT = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm", new Locale("vi", "VN"));
+    private static final int MAX_LINES = 50;
+    private static final long MAX_RETRY_DELAY_MILLIS = 5 * 60 * 1000;
+
+    private final StockHoldRepository stockHoldRepository;
+    private final ProductRepository productRepository;
+    private final UserRepository userRepository;
+    private final StockReservations stockReservations;
+    private final Duration ttl;
+    private final int maxActivePerUser;
+    private final int maxQuantityPerUser;
+
+    private final Clock clock;
+    private final HierarchicalTimingWheel<String> wheel;
+    private final Map<String, HierarchicalTimingWheel.Timeout<String>> timeouts = new ConcurrentHashMap<>();
+    private final Map<String, Integer> releaseFailures = new ConcurrentHashMap<>();
+
+    @Autowired
+    public StockHoldService(StockHoldRepository stockHoldRepository,
+                            ProductRepository productRepository,
+                            UserRepository userRepository,
+                            StockReservations stockReservations,
+                            @Value("${app.holds.ttl-seconds:600}") long ttlSeconds,
+                            @Value("${app.holds.tick-ms:1000}") long tickMillis,
+                            @Value("${app.holds.max-active-per-user:3}") int maxActivePerUser,
+                            @Value("${app.holds.max-quantity-per-user:20}") int maxQuantityPerUser) {
+        this(stockHoldRepository, productRepository, userRepository, stockReservations, ttlSeconds, tickMillis,
+                maxActivePerUser, maxQuantityPerUser, Clock.systemDefaultZone());
+    }
+
+    /**
+     * Cho test: bánh xe và hạn giữ hàng đọc giờ từ clock, để tiến thời gian mà không phải sleep.
+     */
+    StockHoldService(StockHoldRepository stockHoldRepository,
+                     ProductRepository productRepository,
+                     UserRepository userRepository,
+                     StockReservations stockReservations,
+                     long ttlSeconds,
+                     long tickMillis,
+                     int maxActivePerUser,
+                     int maxQuantityPerUser,
+                     Clock clock) {
+        this.clock = clock;
+        this.stockHoldRepository = stockHoldRepository;
+        this.productRepository = productRepository;
+        this.userRepository = userRepository;
+        this.stockReservations = stockReservations;
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+        this.maxActivePerUser = Math.max(1, maxActivePerUser);
+        this.maxQuantityPerUser = Math.max(1, maxQuantityPerUser);
+        // 64 ô × 3 tầng: tầm phủ 2^18 tick (~3 ngày với tick 1 giây), xa hơn thì vào danh sách tràn.
+        this.wheel = new HierarchicalTimingWheel<>(tickMillis, 6, 3, clock.millis());
+    }
+
+    @Transactional
+    public StockHoldDTO createHold(String email, StockHoldRequest request) {
+        User user = userRepository.findByEmailForUpdate(email)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        if (request != null && request.getItems() != null) {
+            for (CreateOrderRequest.CreateOrderItemRequest line : request.getItems()) {
+                if (line.getProductId() != null) {
+                    int qty = line.getQuantity() == null ? 1 : Math.max(1, line.getQuantity());
+                    quantities.merge(line.getProductId(), qty, Integer::sum);
+                }
+            }
+        }
+        if (quantities.isEmpty()) {
+            throw new RuntimeException("Giỏ hàng trống");
+        }
+        if (quantities.size() > MAX_LINES) {
+            throw new RuntimeException("Tối đa " + MAX_LINES + " sản phẩm mỗi lần giữ hàng");
+        }
+        checkUserLimits(user.getId(), quantities.values().stream().mapToInt(Integer::intValue).sum());
+
+        Map<Long, Integer> tracked = new HashMap<>();
+        Map<Long, Integer> currentStock = new HashMap<>();
+        Map<Long, String> names = new HashMap<>();
+        Map<Long, Product> products = new HashMap<>();
+        for (Product product : productRepository.findAllById(quantities.keySet())) {
+            products.put(product.getId(), product);
+        }
+        for (Long productId : quantities.keySet()) {
+            Product product = products.get(productId);
+            if (product == null) {
+                throw new RuntimeException("Product not found: " + productId);
+            }
+            if (!product.isActive()) {
+                throw new RuntimeException("Sản phẩm đã ngừng kinh doanh: " + product.getName());
+            }
+            if (product.getStock() != null) {
+                tracked.put(productId, quantities.get(productId));
+                currentStock.put(productId, product.getStock());
+                names.put(productId, product.getName());
+            }
+        }
+        stockReservations.reserve(tracked, currentStock, names);
+
+        String holdId = UUID.randomUUID().toString();
+        LocalDateTime expiresAt = LocalDateTime.now(clock).plus(ttl);
+        List<StockHold> rows = new ArrayList<>(quantities.size());
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            StockHold hold = new StockHold();
+            hold.setHoldId(holdId);
+            hold.setUserId(user.getId());
+            hold.setProductId(line.getKey());
+            hold.setQuantity(line.getValue());
+            hold.setExpiresAt(expiresAt);
+            rows.add(hold);
+        }
+        stockHoldRepository.saveAll(rows);
+        AfterCommit.run(() -> schedule(holdId, expiresAt));
+        return toDTO(holdId, expiresAt, rows);
+    }
+
+    /**
+     * Khách bỏ thanh toán: trả hàng ngay thay vì chờ hết hạn.
+     */
+    @Transactional
+    public void releaseHold(String email, String holdId) {
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        List<StockHold> rows = lockOwnedRows(user.getId(), holdId);
+        returnStock(rows);
+        forget(holdId);
+    }
+
+    /**
+     * Dùng phiên giữ hàng cho một đơn đang tạo (cùng transaction). Các dòng bị xóa; số lượng đã giữ được trả về
+     * để OrderService chỉ trừ thêm phần vượt và trả lại phần thừa.
+     *
+     * @return productId → số lượng đã giữ
+     */
+    @Transactional
+    public Map<Long, Integer> consumeHold(Long userId, String holdId) {
+        List<StockHold> rows = lockOwnedRows(userId, holdId);
+        LocalDateTime now = LocalDateTime.now(clock);
+        Map<Long, Integer> held = new HashMap<>();
+        for (StockHold row : rows) {
+            if (row.getExpiresAt().isBefore(now)) {
+                throw new RuntimeException("Phiên giữ hàng đã hết hạn");
+            }
+            held.merge(row.getProductId(), row.getQuantity(), Integer::sum);
+        }
+        stockHoldRepository.deleteByIdIn(rows.stream().map(StockHold::getId).toList());
+        forget(holdId);
+        return held;
+    }
+
+    /**
+     * Đưa bánh xe tới hiện tại và trả về các holdId vừa hết hạn (gọi từ StockHoldExpiryScheduler).
+     */
+    public List<String> pollExpired() {
+        List<String> expired = wheel.advance(clock.millis());
+        for (String holdId : expired) {
+            timeouts.remove(holdId);
+        }
+        return expired;
+    }
+
+    /**
+     * Trả tồn kho cho một lô phiên đã hết hạn. Phiên vừa được dùng cho đơn hoặc vừa hủy thì không còn dòng nào.
+     *
+     * @return số phiên đã trả
+     */
+    @Transactional
+    public int releaseExpired(Collection<String> holdIds) {
+        if (holdIds.isEmpty()) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now(clock);
+        List<StockHold> expired = new ArrayList<>();
+        for (StockHold row : stockHoldRepository.findByHoldIdInForUpdate(holdIds)) {
+            if (!row.getExpiresAt().isAfter(now)) {
+                expired.add(row);
+            }
+        }
+        returnStock(expired);
+        AfterCommit.run(() -> holdIds.forEach(releaseFailures::remove));
+        return (int) expired.stream().map(StockHold::getHoldId).distinct().count();
+    }
+
+    /**
+     * Lô trả hàng bị lỗi (DB bận, deadlock...): pollExpired đã gỡ các phiên khỏi bánh xe nên phải xếp lại,
+     * sau 2, 4, 8... tick tùy số lần lỗi liên tiếp của từng phiên, tối đa 5 phút.
+     */
+    public void retryLater(Collection<String> holdIds) {
+        long now = clock.millis();
+        for (String holdId : holdIds) {
+            int failures = releaseFailures.merge(holdId, 1, Integer::sum);
+            long delay = Math.min(MAX_RETRY_DELAY_MILLIS, wheel.tickMillis() << Math.min(failures, 20));
+            scheduleAt(holdId, now + delay);
+        }
+    }
+
+    /**
+     * Xếp lại các phiên còn trong bảng lên bánh xe (kể cả phiên đã quá hạn trong lúc ứng dụng tắt: trả ở tick đầu).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void restore() {
+        try {
+            List<HoldDeadline> deadlines = stockHoldRepository.findDeadlines();
+            for (HoldDeadline deadline : deadlines) {
+                schedule(deadline.getHoldId(), deadline.getExpiresAt());
+            }
+            if (!deadlines.isEmpty()) {
+                log.info("Restored {} stock holds onto the timing wheel", deadlines.size());
+            }
+        } catch (Exception e) {
+            log.error("Could not restore stock holds: {}", e.getMessage());
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("activeHolds", timeouts.size());
+        stats.put("wheelEntries", wheel.size());
+        stats.put("tickMillis", wheel.tickMillis());
+        stats.put("ttlSeconds", ttl.getSeconds());
+        stats.put("retryingReleases", releaseFailures.size());
+        stats.put("maxActivePerUser", maxActivePerUser);
+        stats.put("maxQuantityPerUser", maxQuantityPerUser);
+        return stats;
+    }
+
+    private void checkUserLimits(Long userId, int requestedQuantity) {
+        HoldUsage usage = stockHoldRepository.findUsage(userId, LocalDateTime.now(clock));
+        if (usage.getHolds() >= maxActivePerUser) {
+            throw new RuntimeException("Bạn đang có " + usage.getHolds() + " phiên giữ hàng chưa thanh toán, "
+                    + "vui lòng hoàn tất hoặc hủy trước khi giữ thêm");
+        }
+        long quantity = usage.getQuantity() == null ? 0 : usage.getQuantity();
+        if (quantity + requestedQuantity > maxQuantityPerUser) {
+            throw new RuntimeException("Mỗi khách chỉ được giữ tối đa " + maxQuantityPerUser + " sản phẩm cùng lúc");
+        }
+    }
+
+    private List<StockHold> lockOwnedRows(Long userId, String holdId) {
+        List<StockHold> rows = isBlank(holdId) ? List.of() : stockHoldRepository.findByHoldIdInForUpdate(Set.of(holdId.trim()));
+        if (rows.isEmpty() || rows.stream().anyMatch(row -> !row.getUserId().equals(userId))) {
+            throw new RuntimeException("Phiên giữ hàng không tồn tại hoặc đã hết hạn");
+        }
+        return rows;
+    }
+
+    private void returnStock(List<StockHold> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (StockHold row : rows) {
+            quantities.merge(row.getProductId(), row.getQuantity(), Integer::sum);
+        }
+        stockReservations.release(quantities);
+        stockHoldRepository.deleteByIdIn(rows.stream().map(StockHold::getId).toList());
+    }
+
+    private void schedule(String holdId, LocalDateTime expiresAt) {
+        scheduleAt(holdId, expiresAt.atZone(clock.getZone()).toInstant().toEpochMilli());
+    }
+
+    private void scheduleAt(String holdId, long deadlineMillis) {
+        HierarchicalTimingWheel.Timeout<String> previous = timeouts.put(holdId, wheel.schedule(holdId, deadlineMillis));
+        if (previous != null) {
+            previous.cancel();
+        }
+    }
+
+    private void forget(String holdId) {
+        AfterCommit.run(() -> {
+            releaseFailures.remove(holdId);
+            HierarchicalTimingWheel.Timeout<String> timeout = timeouts.remove(holdId);
+            if (timeout != null) {
+                timeout.cancel();
+            }
+        });
+    }
+
+    private StockHoldDTO toDTO(String holdId, LocalDateTime expiresAt, List<StockHold> rows) {
+        StockHoldDTO dto = new StockHoldDTO();
+        dto.setHoldId(holdId);
+        dto.setExpiresAt(DT.format(expiresAt));
+        dto.setExpiresInSeconds(ttl.getSeconds());
+        for (StockHold row : rows) {
+            dto.getItems().add(new StockHoldDTO.Item(row.getProductId(), row.getQuantity()));
+        }
+        return dto;
+    }
+
+    private static boolean isBlank(String s) {
+        return s == null || s.trim().isEmpty();
+    }
+}
@@ -0,0 +1,310 @@
+package com.goimay.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Giữ và trả tồn kho khi đặt/hủy đơn. products.stock = null nghĩa là không quản lý tồn kho.
+ * <p>
+ * Nguồn sự thật là câu UPDATE có điều kiện {@code stock = stock - ? WHERE stock >= ?}, chạy theo batch cho cả giỏ
+ * trong transaction tạo đơn, theo thứ tự id tăng dần để hai đơn không khóa dòng chéo nhau.
+ * Phía trước là bộ đếm trong bộ nhớ chia thành nhiều stripe cho mỗi sản phẩm: đơn chỉ chạm DB khi đã giữ được
+ * hàng trong bộ nhớ, nên khi một SKU hot hết hàng các đơn bị từ chối ngay mà không xếp hàng chờ khóa dòng.
+ * Bộ đếm chỉ là cổng lọc: lệch so với DB (instance khác, admin sửa tồn kho) thì được nạp lại, DB vẫn quyết định.
+ * <p>
+ * Mọi câu UPDATE ở đây cũng đặt updated_at = NOW() và evict ProductDTO của sản phẩm (evictStock) để trang chi tiết
+ * và trang quản trị thấy tồn kho mới. Trang danh sách và phiên bản ETag đã cache được giữ: chúng không hiển thị stock,
+ * và xóa chúng sau mỗi đơn sẽ làm mất cache đúng lúc tải cao nhất.
+ */
+@Component
+@RequiredArgsConstructor
+public class StockReservations {
+
+    private static final int STRIPES = 8;
+    /** Bộ đếm báo thiếu hàng thì đọc lại DB, nhưng không quá một lần mỗi khoảng này cho mỗi sản phẩm. */
+    private static final long REFRESH_INTERVAL_MILLIS = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbc;
+    private final ProductCatalogCache productCatalogCache;
+
+    private final Map<Long, StripedCounter> counters = new ConcurrentHashMap<>();
+
+    /**
+     * Giữ hàng cho các sản phẩm có quản lý tồn kho trong transaction hiện tại.
+     * Nếu transaction không commit, phần đã giữ trong bộ nhớ được trả lại; phần trong DB rollback theo transaction.
+     *
+     * @param quantities productId → tổng số lượng trong giỏ (chỉ sản phẩm có stock khác null)
+     * @param currentStock productId → stock vừa đọc, dùng để khởi tạo bộ đếm
+     * @param names productId → tên sản phẩm cho thông báo lỗi
+     */
+    public void reserve(Map<Long, Integer> quantities, Map<Long, Integer> currentStock, Map<Long, String> names) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        Reservation reservation = acquire(quantities, currentStock, names);
+        releaseUnlessCommitted(reservation);
+
+        List<Map.Entry<Long, Integer>> lines = new ArrayList<>(new TreeMap<>(quantities).entrySet());
+        boolean[] applied = decrementEach(lines);
+        for (int i = 0; i < applied.length; i++) {
+            if (!applied[i]) {
+                Long productId = lines.get(i).getKey();
+                throw new RuntimeException("Sản phẩm \"" + names.get(productId) + "\" không đủ hàng");
+            }
+        }
+    }
+
+    /**
+     * Chỉ giữ hàng trên bộ đếm trong bộ nhớ (chưa chạm DB), dùng khi việc trừ products.stock diễn ra sau,
+     * ở luồng ghi đơn theo lô. Người gọi phải {@link Reservation#release()} nếu đơn không được ghi.
+     */
+    public Reservation acquire(Map<Long, Integer> quantities, Map<Long, Integer> currentStock, Map<Long, String> names) {
+        List<Held> held = new ArrayList<>(quantities.size());
+        for (Map.Entry<Long, Integer> line : new TreeMap<>(quantities).entrySet()) {
+            Long productId = line.getKey();
+            int quantity = line.getValue();
+            StripedCounter counter = counters.computeIfAbsent(productId,
+                    id -> new StripedCounter(currentStock.getOrDefault(id, 0)));
+            if (!counter.tryAcquire(quantity)) {
+                counter = refresh(productId, counter);
+                if (counter == null || !counter.tryAcquire(quantity)) {
+                    releaseHeld(held);
+                    throw new RuntimeException("Sản phẩm \"" + names.get(productId) + "\" không đủ hàng");
+                }
+            }
+            held.add(new Held(productId, counter, quantity));
+        }
+        return new Reservation(held);
+    }
+
+    /**
+     * Chạy {@code UPDATE ... SET stock = stock - ? WHERE id = ? AND stock >= ?} cho từng dòng trong một batch,
+     * theo đúng thứ tự truyền vào (người gọi sắp theo productId). Dòng thất bại làm bộ đếm của sản phẩm bị nạp lại.
+     *
+     * @param lines productId → số lượng cần trừ
+     * @return dòng thứ i có trừ được hay không
+     */
+    public boolean[] decrementEach(List<Map.Entry<Long, Integer>> lines) {
+        boolean[] applied = new boolean[lines.size()];
+        if (lines.isEmpty()) {
+            return applied;
+        }
+        int[][] updated = jdbcTemplate.batchUpdate(
+                "UPDATE products SET stock = stock - ?, updated_at = NOW() WHERE id = ? AND stock >= ?",
+                lines, lines.size(),
+                (ps, line) -> {
+                    ps.setInt(1, line.getValue());
+                    ps.setLong(2, line.getKey());
+                    ps.setInt(3, line.getValue());
+                });
+        int[] counts = updated.length > 0 ? updated[0] : new int[0];
+        List<Long> changed = new ArrayList<>(lines.size());
+        for (int i = 0; i < applied.length; i++) {
+            applied[i] = i < counts.length && counts[i] != 0;
+            if (applied[i]) {
+                changed.add(lines.get(i).getKey());
+            } else {
+                counters.remove(lines.get(i).getKey());
+            }
+        }
+        productCatalogCache.evictStock(changed);
+        return applied;
+    }
+
+    private StripedCounter refresh(Long productId, StripedCounter stale) {
+        if (System.currentTimeMillis() - stale.loadedAt < REFRESH_INTERVAL_MILLIS) {
+            return stale;
+        }
+        List<Integer> rows = jdbcTemplate.queryForList("SELECT stock FROM products WHERE id = ?", Integer.class, productId);
+        if (rows.isEmpty() || rows.get(0) == null) {
+            counters.remove(productId, stale);
+            return null;
+        }
+        StripedCounter fresh = new StripedCounter(rows.get(0));
+        counters.replace(productId, stale, fresh);
+        return fresh;
+    }
+
+    /**
+     * Trả hàng của các đơn bị hủy (chỉ đơn có stock_reserved), trong transaction hiện tại.
+     */
+    public void releaseForOrders(Collection<String> orderIds) {
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        MapSqlParameterSource byIds = new MapSqlParameterSource("ids", orderIds);
+        List<Map<String, Object>> rows = namedJdbc.queryForList(
+                "SELECT i.product_id AS product_id, SUM(i.quantity) AS quantity FROM order_items i " +
+                "JOIN orders o ON o.id = i.order_id " +
+                "WHERE i.order_id IN (:ids) AND o.stock_reserved = TRUE " +
+                "GROUP BY i.product_id ORDER BY i.product_id", byIds);
+        if (rows.isEmpty()) {
+            return;
+        }
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (Map<String, Object> row : rows) {
+            quantities.put(((Number) row.get("product_id")).longValue(), ((Number) row.get("quantity")).intValue());
+        }
+        release(quantities);
+        namedJdbc.update("UPDATE orders SET stock_reserved = FALSE WHERE id IN (:ids)", byIds);
+    }
+
+    /**
+     * Cộng trả số lượng vào products.stock trong một batch (theo id tăng dần), bỏ qua sản phẩm không quản lý tồn kho.
+     */
+    public void release(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<Long, Integer>> lines = new ArrayList<>(new TreeMap<>(quantities).entrySet());
+        jdbcTemplate.batchUpdate(
+                "UPDATE products SET stock = stock + ?, updated_at = NOW() WHERE id = ? AND stock IS NOT NULL",
+                lines, lines.size(), (ps, line) -> {
+                    ps.setInt(1, line.getValue());
+                    ps.setLong(2, line.getKey());
+                });
+        List<Long> productIds = lines.stream().map(Map.Entry::getKey).toList();
+        productCatalogCache.evictStock(productIds);
+        AfterCommit.run(() -> productIds.forEach(counters::remove));
+    }
+
+    /**
+     * Admin nhập/xuất kho: cộng delta (âm để giảm) vào products.stock bằng một câu UPDATE nguyên tử, không bao giờ
+     * xuống dưới 0 và không ghi đè phần đang được đơn giữ. Sản phẩm chưa quản lý tồn kho (stock null) bắt đầu từ 0.
+     *
+     * @return false nếu sản phẩm không tồn tại hoặc tồn kho không đủ để giảm
+     */
+    public boolean adjust(Long productId, int delta) {
+        int updated = jdbcTemplate.update(
+                "UPDATE products SET stock = COALESCE(stock, 0) + ?, updated_at = NOW() " +
+                "WHERE id = ? AND COALESCE(stock, 0) + ? >= 0",
+                delta, productId, delta);
+        if (updated == 0) {
+            return false;
+        }
+        productCatalogCache.evictStock(List.of(productId));
+        invalidate(productId);
+        return true;
+    }
+
+    /**
+     * Tồn kho của sản phẩm vừa được sửa trực tiếp (admin): bỏ bộ đếm để lần sau nạp lại từ DB.
+     */
+    public void invalidate(Long productId) {
+        AfterCommit.run(() -> counters.remove(productId));
+    }
+
+    private void releaseUnlessCommitted(Reservation reservation) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    reservation.release();
+                }
+            }
+        });
+    }
+
+    private static void releaseHeld(List<Held> held) {
+        for (Held h : held) {
+            h.counter.release(h.quantity);
+        }
+    }
+
+    /**
+     * Phần đã giữ trên bộ đếm trong bộ nhớ; release() trả lại đúng một lần.
+     */
+    public static final class Reservation {
+
+        private final List<Held> held;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Reservation(List<Held> held) {
+            this.held = held;
+        }
+
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                releaseHeld(held);
+            }
+        }
+    }
+
+    private record Held(Long productId, StripedCounter counter, int quantity) {
+    }
+
+    /**
+     * Số lượng còn lại chia đều vào các stripe; mỗi luồng bắt đầu từ một stripe ngẫu nhiên nên CAS ít đụng nhau.
+     * Một stripe không đủ thì gom từ nhiều stripe, thất bại thì trả lại phần đã gom.
+     */
+    static final class StripedCounter {
+
+        private final AtomicIntegerArray stripes = new AtomicIntegerArray(STRIPES);
+        private final long loadedAt = System.currentTimeMillis();
+
+        StripedCounter(int available) {
+            int total = Math.max(available, 0);
+            for (int i = 0; i < STRIPES; i++) {
+                stripes.set(i, total / STRIPES + (i < total % STRIPES ? 1 : 0));
+            }
+        }
+
+        boolean tryAcquire(int quantity) {
+            int start = ThreadLocalRandom.current().nextInt(STRIPES);
+            for (int i = 0; i < STRIPES; i++) {
+                int idx = (start + i) % STRIPES;
+                int value;
+                while ((value = stripes.get(idx)) >= quantity) {
+                    if (stripes.compareAndSet(idx, value, value - quantity)) {
+                        return true;
+                    }
+                }
+            }
+            int[] taken = new int[STRIPES];
+            int needed = quantity;
+            for (int i = 0; i < STRIPES && needed > 0; i++) {
+                int idx = (start + i) % STRIPES;
+                int value;
+                while ((value = stripes.get(idx)) > 0 && needed > 0) {
+                    int take = Math.min(value, needed);
+                    if (stripes.compareAndSet(idx, value, value - take)) {
+                        taken[idx] += take;
+                        needed -= take;
+                    }
+                }
+            }
+            if (needed == 0) {
+                return true;
+            }
+            for (int idx = 0; idx < STRIPES; idx++) {
+                if (taken[idx] > 0) {
+                    stripes.addAndGet(idx, taken[idx]);
+                }
+            }
+            return false;
+        }
+
+        void release(int quantity) {
+            stripes.addAndGet(ThreadLocalRandom.current().nextInt(STRIPES), quantity);
+        }
+    }
+}
@@ -17,6 +17,7 @@ public class UserService {
     
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UserStateCache userStateCache;
     
     public UserDTO getUserProfile(String email) {
         User user = userRepository.findByEmail(email)
@@ -55,6 +56,7 @@ public class UserService {
         
         user.setPassword(passwordEncoder.encode(request.getNewPassword()));
         userRepository.save(user);
+        userStateCache.evict(email);
     }
     
     private UserDTO toDTO(User user) {
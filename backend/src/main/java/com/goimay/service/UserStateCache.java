@@ -0,0 +1,83 @@
+package com.goimay.service;
+
+import com.goimay.model.Role;
+import com.goimay.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Trạng thái người dùng mà JwtAuthenticationFilter cần (id, role, enabled), cache theo email với TTL ngắn,
+ * để request đã đăng nhập không phải đọc bảng users mỗi lần. Đổi/đặt lại mật khẩu và tạo tài khoản thì evict ngay.
+ * Ứng dụng chưa có chức năng khóa tài khoản hay đổi role; sửa các cột đó trực tiếp trong DB chỉ có hiệu lực
+ * sau tối đa một TTL. Khi thêm chức năng như vậy, nơi ghi phải gọi evict sau commit như PasswordResetService.
+ */
+@Component
+public class UserStateCache {
+
+    private final UserRepository userRepository;
+    private final long ttlMillis;
+    private final int maxEntries;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public UserStateCache(UserRepository userRepository,
+                          @Value("${app.auth.user-cache.ttl-seconds:60}") long ttlSeconds,
+                          @Value("${app.auth.user-cache.max-entries:10000}") int maxEntries) {
+        this.userRepository = userRepository;
+        this.ttlMillis = ttlSeconds * 1000L;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * @return trạng thái hiện tại, hoặc null nếu không còn người dùng với email này
+     */
+    public UserState get(String email) {
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(email);
+        if (entry != null && now - entry.loadedAt < ttlMillis) {
+            hits.incrementAndGet();
+            return entry.state;
+        }
+        misses.incrementAndGet();
+        UserState state = userRepository.findByEmail(email)
+                .map(user -> new UserState(user.getId(), user.getRole(), user.isEnabled()))
+                .orElse(null);
+        if (entries.size() >= maxEntries) {
+            entries.values().removeIf(e -> now - e.loadedAt >= ttlMillis);
+            if (entries.size() >= maxEntries) {
+                entries.clear();
+            }
+        }
+        entries.put(email, new Entry(state, now));
+        return state;
+    }
+
+    public void evict(String email) {
+        if (email != null) {
+            entries.remove(email);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", entries.size());
+        stats.put("maxEntries", maxEntries);
+        stats.put("ttlSeconds", ttlMillis / 1000);
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        return stats;
+    }
+
+    public record UserState(Long id, Role role, boolean enabled) {
+    }
+
+    private record Entry(UserState state, long loadedAt) {
+    }
+}
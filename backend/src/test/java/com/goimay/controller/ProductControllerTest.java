@@ -0,0 +1,79 @@
+package com.goimay.controller;
+
+import com.goimay.exception.GlobalExceptionHandler;
+import com.goimay.repository.ProductImageRepository;
+import com.goimay.repository.ProductRepository;
+import com.goimay.search.ProductSearchIndex;
+import com.goimay.search.SuggestIndex;
+import com.goimay.service.ContentVersion;
+import com.goimay.service.ContentVersionService;
+import com.goimay.service.ProductCatalogCache;
+import com.goimay.service.ProductService;
+import com.goimay.service.StockReservations;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class ProductControllerTest {
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        ProductService productService = new ProductService(productRepository, mock(ProductImageRepository.class),
+                new ProductCatalogCache(100, 100, 60), mock(ProductSearchIndex.class), mock(SuggestIndex.class),
+                mock(StockReservations.class));
+        ContentVersionService contentVersionService = mock(ContentVersionService.class);
+        when(contentVersionService.products()).thenReturn(new ContentVersion("\"p-0-0\"", -1L));
+        mockMvc = MockMvcBuilders.standaloneSetup(new ProductController(productService, contentVersionService))
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void malformedCursorIsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/products").param("cursor", "%%%"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Cursor không hợp lệ"));
+        mockMvc.perform(get("/api/products").param("cursor", "bm90LWEtY3Vyc29y"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void cursorTakesPrecedenceOverIncludeInactive() throws Exception {
+        // Trước đây hai mapping cùng khớp nên Spring ném IllegalStateException (500).
+        mockMvc.perform(get("/api/products").param("cursor", "").param("includeInactive", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.hasNext").value(false))
+                .andExpect(jsonPath("$.content").isEmpty());
+        verify(productRepository).findActiveSummariesFirstPage(any(Pageable.class));
+        verify(productRepository, never()).findAll(any(Pageable.class));
+    }
+
+    @Test
+    void includeInactiveWithoutCursorStillServesAdminListing() throws Exception {
+        when(productRepository.findAll(any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(), PageRequest.of(0, 12), 0));
+
+        mockMvc.perform(get("/api/products").param("includeInactive", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(0));
+        verify(productRepository).findAll(any(Pageable.class));
+    }
+}
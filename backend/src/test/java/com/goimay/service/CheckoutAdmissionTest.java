@@ -0,0 +1,95 @@
+package com.goimay.service;
+
+import com.goimay.exception.ServiceBusyException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CheckoutAdmissionTest {
+
+    @Test
+    void refusesQueueThatCouldHoldTooManyRequestThreads() {
+        assertThatThrownBy(() -> new CheckoutAdmission(4, 200, 3000, 200))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("server.tomcat.threads.max");
+        new CheckoutAdmission(4, 46, 3000, 200);
+    }
+
+    @Test
+    void rejectsWithRetryAfterWhenQueueIsFull() throws Exception {
+        CheckoutAdmission admission = new CheckoutAdmission(1, 0, 100, 200);
+        CountDownLatch inside = new CountDownLatch(1);
+        CountDownLatch leave = new CountDownLatch(1);
+        Thread holder = new Thread(() -> admission.call(() -> {
+            inside.countDown();
+            try {
+                leave.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }));
+        holder.start();
+        assertThat(inside.await(2, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> admission.call(() -> "second"))
+                .isInstanceOfSatisfying(ServiceBusyException.class,
+                        e -> assertThat(e.getRetryAfterSeconds()).isBetween(1L, 30L));
+
+        leave.countDown();
+        holder.join(2000);
+        assertThat(admission.call(() -> "after")).isEqualTo("after");
+    }
+
+    @Test
+    void queueLimitCountsOnlyCallersThatActuallyWait() throws Exception {
+        CheckoutAdmission admission = new CheckoutAdmission(2, 1, 2000, 200);
+        CountDownLatch inside = new CountDownLatch(2);
+        CountDownLatch leave = new CountDownLatch(1);
+        List<Thread> holders = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            Thread holder = new Thread(() -> admission.call(() -> {
+                inside.countDown();
+                await(leave);
+                return null;
+            }));
+            holder.start();
+            holders.add(holder);
+        }
+        // Cả hai đều vào được dù max-queue = 1: người gọi có permit trống không bị tính là đang chờ.
+        assertThat(inside.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(admission.stats()).containsEntry("queueDepth", 0);
+
+        AtomicReference<String> queued = new AtomicReference<>();
+        Thread waiter = new Thread(() -> queued.set(admission.call(() -> "queued")));
+        waiter.start();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (!Integer.valueOf(1).equals(admission.stats().get("queueDepth")) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(admission.stats()).containsEntry("queueDepth", 1);
+        assertThatThrownBy(() -> admission.call(() -> "rejected")).isInstanceOf(ServiceBusyException.class);
+
+        leave.countDown();
+        waiter.join(2000);
+        for (Thread holder : holders) {
+            holder.join(2000);
+        }
+        assertThat(queued.get()).isEqualTo("queued");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.goimay.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdempotencyStoreTest {
+
+    private final IdempotencyStore store = new IdempotencyStore(100, 3600);
+
+    @Test
+    void concurrentDuplicatesShareOneExecution() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(pool.submit(() -> store.execute("a@goimay.vn", "key-1", "cart", () -> {
+                    runs.incrementAndGet();
+                    started.countDown();
+                    await(finish);
+                    return "GM1";
+                })));
+            }
+            assertThat(started.await(2, TimeUnit.SECONDS)).isTrue();
+            finish.countDown();
+            for (Future<String> result : results) {
+                assertThat(result.get(2, TimeUnit.SECONDS)).isEqualTo("GM1");
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertThat(runs.get()).isEqualTo(1);
+    }
+
+    @Test
+    void replayReturnsTheStoredResultWithoutRunningAgain() {
+        AtomicInteger runs = new AtomicInteger();
+        assertThat(store.execute("a@goimay.vn", "key-1", "cart", () -> "GM" + runs.incrementAndGet())).isEqualTo("GM1");
+        assertThat(store.execute("a@goimay.vn", "key-1", "cart", () -> "GM" + runs.incrementAndGet())).isEqualTo("GM1");
+        // Khóa thuộc phạm vi từng người dùng.
+        assertThat(store.execute("b@goimay.vn", "key-1", "cart", () -> "GM" + runs.incrementAndGet())).isEqualTo("GM2");
+        assertThat(runs.get()).isEqualTo(2);
+    }
+
+    @Test
+    void sameKeyWithDifferentRequestIsRejected() {
+        store.execute("a@goimay.vn", "key-1", "cart-a", () -> "GM1");
+
+        assertThatThrownBy(() -> store.execute("a@goimay.vn", "key-1", "cart-b", () -> "GM2"))
+                .hasMessageContaining("yêu cầu khác");
+    }
+
+    @Test
+    void failedRunReleasesTheKeyForARetry() {
+        assertThatThrownBy(() -> store.execute("a@goimay.vn", "key-1", "cart", () -> {
+            throw new RuntimeException("Thiếu thông tin giao hàng");
+        })).hasMessage("Thiếu thông tin giao hàng");
+
+        assertThat(store.execute("a@goimay.vn", "key-1", "cart", () -> "GM1")).isEqualTo("GM1");
+    }
+
+    @Test
+    void expiredKeyRunsAgain() throws Exception {
+        IdempotencyStore shortLived = new IdempotencyStore(100, 0);
+        AtomicInteger runs = new AtomicInteger();
+        shortLived.execute("a@goimay.vn", "key-1", "cart", runs::incrementAndGet);
+        // TTL 0: khóa hết hạn ngay khi đồng hồ nhích qua mili-giây tạo ra nó.
+        Thread.sleep(5);
+        shortLived.purgeExpired();
+
+        assertThat(shortLived.execute("a@goimay.vn", "key-1", "cart", runs::incrementAndGet)).isEqualTo(2);
+    }
+
+    @Test
+    void missingKeyAlwaysRuns() {
+        AtomicInteger runs = new AtomicInteger();
+        store.execute("a@goimay.vn", null, "cart", runs::incrementAndGet);
+        store.execute("a@goimay.vn", " ", "cart", runs::incrementAndGet);
+        assertThat(runs.get()).isEqualTo(2);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
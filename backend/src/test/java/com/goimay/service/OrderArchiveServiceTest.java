@@ -0,0 +1,163 @@
+package com.goimay.service;
+
+import com.goimay.dto.OrderDTO;
+import com.goimay.dto.OrderItemDTO;
+import com.goimay.model.Order;
+import com.goimay.model.OrderItem;
+import com.goimay.model.OrderStatus;
+import com.goimay.model.User;
+import com.goimay.repository.ArchivedOrderItemRepository;
+import com.goimay.repository.ArchivedOrderRepository;
+import com.goimay.repository.OrderItemBatchRepository;
+import com.goimay.repository.OrderRepository;
+import com.goimay.repository.ProductRepository;
+import com.goimay.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/**
+ * Chuyển đơn cũ sang bảng lưu trữ trên H2, rồi kiểm tra các thao tác đổi trạng thái vẫn tìm thấy đơn đã lưu trữ.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false"
+})
+class OrderArchiveServiceTest {
+
+    private static final String EMAIL = "archive@goimay.vn";
+    private static final LocalDateTime CUTOFF = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private ArchivedOrderRepository archivedOrderRepository;
+    @Autowired
+    private ArchivedOrderItemRepository archivedOrderItemRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final SalesRollupService salesRollupService = mock(SalesRollupService.class);
+
+    private OrderArchiveService orderArchiveService;
+    private OrderService orderService;
+
+    @BeforeEach
+    void setUp() {
+        orderArchiveService = new OrderArchiveService(new NamedParameterJdbcTemplate(jdbcTemplate));
+        orderService = new OrderService(orderRepository, archivedOrderRepository, archivedOrderItemRepository,
+                userRepository, productRepository, new OrderItemBatchRepository(jdbcTemplate),
+                new OrderIdGenerator(1), eventPublisher, salesRollupService,
+                mock(StockReservations.class), mock(StockHoldService.class));
+
+        User user = new User();
+        user.setFullName("Khách lưu trữ");
+        user.setEmail(EMAIL);
+        user.setPassword("x");
+        userRepository.save(user);
+
+        order("GM-OLD-1", user, OrderStatus.GIAO_HANG_THANH_CONG, CUTOFF.minusDays(30), 2);
+        order("GM-OLD-2", user, OrderStatus.DA_HUY, CUTOFF.minusDays(20), 1);
+        order("GM-OLD-3", user, OrderStatus.GIAO_HANG_THANH_CONG, CUTOFF.minusDays(10), 3);
+        order("GM-OLD-OPEN", user, OrderStatus.DA_XAC_NHAN_DANG_CHUAN_BI, CUTOFF.minusDays(40), 1);
+        order("GM-NEW", user, OrderStatus.GIAO_HANG_THANH_CONG, CUTOFF.plusDays(1), 1);
+    }
+
+    @Test
+    void archivesOldFinishedOrdersOldestFirstInChunks() {
+        assertThat(orderArchiveService.archiveChunk(CUTOFF, 2)).isEqualTo(2);
+        assertThat(archivedIds()).containsExactlyInAnyOrder("GM-OLD-1", "GM-OLD-2");
+
+        assertThat(orderArchiveService.archiveChunk(CUTOFF, 2)).isEqualTo(1);
+        assertThat(orderArchiveService.archiveChunk(CUTOFF, 2)).isZero();
+
+        // Đơn chưa kết thúc và đơn sau mốc cắt ở lại bảng nóng; đơn đã chuyển mang theo toàn bộ dòng hàng.
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM orders ORDER BY id", String.class))
+                .containsExactly("GM-NEW", "GM-OLD-OPEN");
+        assertThat(archivedIds()).containsExactlyInAnyOrder("GM-OLD-1", "GM-OLD-2", "GM-OLD-3");
+        assertThat(count("SELECT COUNT(*) FROM order_items WHERE order_id LIKE 'GM-OLD-_'")).isZero();
+        assertThat(count("SELECT COUNT(*) FROM order_items_archive")).isEqualTo(6);
+        assertThat(count("SELECT COUNT(*) FROM orders_archive WHERE archived_at IS NULL")).isZero();
+    }
+
+    @Test
+    void statusChangesOnArchivedOrdersFallBackToTheArchive() {
+        orderArchiveService.archiveChunk(CUTOFF, 10);
+        entityManager.clear();
+
+        OrderDTO received = orderService.markReceived(EMAIL, "GM-OLD-3");
+        assertThat(received.getStatus()).isEqualTo("GIAO_HANG_THANH_CONG");
+        assertThat(received.getItems()).extracting(OrderItemDTO::getName)
+                .containsExactly("Gối mây 1", "Gối mây 2", "Gối mây 3");
+
+        assertThatThrownBy(() -> orderService.markReceived(EMAIL, "GM-OLD-2"))
+                .hasMessage("Đơn hàng đã bị hủy");
+        assertThatThrownBy(() -> orderService.adminConfirm("GM-OLD-1"))
+                .hasMessage("Đơn đã giao thành công");
+        assertThatThrownBy(() -> orderService.adminConfirm("GM-OLD-2"))
+                .hasMessage("Đơn đã hủy không thể xác nhận");
+        assertThatThrownBy(() -> orderService.adminConfirm("GM-MISSING"))
+                .hasMessage("Order not found");
+        assertThat(orderService.adminCancel("GM-OLD-2").getStatus()).isEqualTo("DA_HUY");
+
+        // Bản lưu trữ chỉ được đọc: không đổi trạng thái, không cộng doanh số, không phát sự kiện.
+        assertThat(jdbcTemplate.queryForObject("SELECT status FROM orders_archive WHERE id = 'GM-OLD-1'", String.class))
+                .isEqualTo("GIAO_HANG_THANH_CONG");
+        verifyNoInteractions(salesRollupService, eventPublisher);
+    }
+
+    private void order(String id, User user, OrderStatus status, LocalDateTime createdAt, int lines) {
+        Order order = new Order();
+        order.setId(id);
+        order.setUser(user);
+        order.setStatus(status);
+        order.setFullName(user.getFullName());
+        order.setPhone("0900000000");
+        order.setAddress("Hà Nội");
+        order.setItemCount(lines);
+        for (int i = 1; i <= lines; i++) {
+            OrderItem item = new OrderItem();
+            item.setOrder(order);
+            item.setProductId((long) i);
+            item.setName("Gối mây " + i);
+            item.setUnitPrice(new BigDecimal("120000"));
+            item.setQuantity(1);
+            item.setLineTotal(new BigDecimal("120000"));
+            order.getItems().add(item);
+        }
+        orderRepository.save(order);
+        entityManager.flush();
+        // @PrePersist luôn ghi now(), nên đặt lại created_at trực tiếp.
+        jdbcTemplate.update("UPDATE orders SET created_at = ? WHERE id = ?", createdAt, id);
+    }
+
+    private List<String> archivedIds() {
+        return jdbcTemplate.queryForList("SELECT id FROM orders_archive", String.class);
+    }
+
+    private long count(String sql) {
+        return jdbcTemplate.queryForObject(sql, Long.class);
+    }
+}
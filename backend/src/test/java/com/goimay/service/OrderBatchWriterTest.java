@@ -0,0 +1,76 @@
+package com.goimay.service;
+
+import com.goimay.model.OrderStatus;
+import com.goimay.repository.OrderBatchRepository;
+import com.goimay.repository.OrderItemBatchRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class OrderBatchWriterTest {
+
+    private final OrderBatchRepository orderBatchRepository = mock(OrderBatchRepository.class);
+    private final OrderItemBatchRepository orderItemBatchRepository = mock(OrderItemBatchRepository.class);
+    private final StockReservations stockReservations = mock(StockReservations.class);
+    private final SalesRollupService salesRollupService = mock(SalesRollupService.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private OrderBatchWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        writer = new OrderBatchWriter(orderBatchRepository, orderItemBatchRepository, stockReservations,
+                salesRollupService, eventPublisher);
+        when(orderBatchRepository.findExistingIds(anyCollection())).thenReturn(Set.of());
+    }
+
+    @Test
+    void outOfStockOrderIsStoredCancelledWithoutSalesOrCreatedEvent() {
+        when(stockReservations.decrementEach(anyList())).thenReturn(new boolean[]{false});
+
+        OrderBatchWriter.Result result = writer.write(List.of(OrderIngestionPipelineTest.order("GM1")), true);
+
+        assertThat(result.rejected()).containsKey("GM1");
+        assertThat(result.written().get("GM1").getStatus()).isEqualTo(OrderStatus.DA_HUY);
+        verifyNoInteractions(salesRollupService, eventPublisher);
+    }
+
+    @Test
+    void onlyOrdersThatGotStockAreCountedAndAnnounced() {
+        // Lô sắp theo productId: GM1 (sản phẩm 1) trừ được, GM2 (sản phẩm 1, dòng sau) hết hàng.
+        when(stockReservations.decrementEach(anyList())).thenReturn(new boolean[]{true, false});
+
+        writer.write(List.of(OrderIngestionPipelineTest.order("GM1"), OrderIngestionPipelineTest.order("GM2")), true);
+
+        verify(salesRollupService, times(1)).recordOrderCreated(any(), anyList());
+        verify(salesRollupService).recordOrderCreated(argThat(order -> order.getId().equals("GM1")), anyList());
+        ArgumentCaptor<Object> events = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher, times(1)).publishEvent(events.capture());
+        assertThat(((OrderEvent) events.getValue()).orderId()).isEqualTo("GM1");
+    }
+
+    @Test
+    void rejectedOrderIsNotInsertedWhenCallerIsStillWaiting() {
+        when(stockReservations.decrementEach(anyList())).thenReturn(new boolean[]{false});
+
+        OrderBatchWriter.Result result = writer.write(List.of(OrderIngestionPipelineTest.order("GM1")), false);
+
+        assertThat(result.written()).isEmpty();
+        verify(orderBatchRepository).insertAll(argThat(orders -> orders.isEmpty()), anyList());
+        verifyNoInteractions(salesRollupService, eventPublisher);
+    }
+}
@@ -0,0 +1,137 @@
+package com.goimay.service;
+
+import com.goimay.dto.CursorPage;
+import com.goimay.dto.OrderSummaryDTO;
+import com.goimay.model.Order;
+import com.goimay.model.User;
+import com.goimay.repository.ArchivedOrderItemRepository;
+import com.goimay.repository.ArchivedOrderRepository;
+import com.goimay.repository.OrderItemBatchRepository;
+import com.goimay.repository.OrderRepository;
+import com.goimay.repository.ProductRepository;
+import com.goimay.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Đi hết "đơn của tôi" theo con trỏ trên H2, với nhiều đơn trùng created_at để con trỏ phải dựa vào id.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false"
+})
+class OrderCursorTest {
+
+    private static final String EMAIL = "cursor@goimay.vn";
+    private static final LocalDateTime SAME_SECOND = LocalDateTime.of(2024, 3, 1, 9, 30);
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private OrderService orderService;
+
+    @BeforeEach
+    void setUp() {
+        orderService = new OrderService(orderRepository, mock(ArchivedOrderRepository.class),
+                mock(ArchivedOrderItemRepository.class), userRepository, productRepository,
+                new OrderItemBatchRepository(jdbcTemplate), new OrderIdGenerator(1),
+                mock(ApplicationEventPublisher.class), mock(SalesRollupService.class),
+                mock(StockReservations.class), mock(StockHoldService.class));
+
+        User owner = user(EMAIL);
+        User other = user("other@goimay.vn");
+        for (String id : List.of("GM-01", "GM-02", "GM-03", "GM-04", "GM-05", "GM-06", "GM-07")) {
+            order(id, owner);
+        }
+        order("GM-99", other);
+        entityManager.flush();
+        entityManager.clear();
+
+        // @PrePersist luôn ghi now(), nên đặt lại created_at trực tiếp: năm đơn cùng một thời điểm, hai đơn cũ hơn.
+        jdbcTemplate.update("UPDATE orders SET created_at = ?", SAME_SECOND);
+        jdbcTemplate.update("UPDATE orders SET created_at = ? WHERE id IN ('GM-01', 'GM-02')", SAME_SECOND.minusDays(1));
+    }
+
+    @Test
+    void walksEveryOrderOnceAcrossPagesWithEqualTimestamps() {
+        List<String> seen = new ArrayList<>();
+        List<Integer> pageSizes = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<OrderSummaryDTO> page = orderService.getMyOrdersByCursor(EMAIL, cursor, 2);
+            page.getContent().forEach(order -> seen.add(order.getId()));
+            pageSizes.add(page.getContent().size());
+            assertThat(page.isHasNext()).isEqualTo(page.getNextCursor() != null);
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertThat(seen).containsExactly("GM-07", "GM-06", "GM-05", "GM-04", "GM-03", "GM-02", "GM-01");
+        assertThat(pageSizes).containsExactly(2, 2, 2, 1);
+    }
+
+    @Test
+    void lastFullPageHasNoNextCursor() {
+        CursorPage<OrderSummaryDTO> first = orderService.getMyOrdersByCursor(EMAIL, "", 4);
+        CursorPage<OrderSummaryDTO> second = orderService.getMyOrdersByCursor(EMAIL, first.getNextCursor(), 3);
+
+        assertThat(second.getContent()).extracting(OrderSummaryDTO::getId).containsExactly("GM-03", "GM-02", "GM-01");
+        assertThat(second.isHasNext()).isFalse();
+        assertThat(second.getNextCursor()).isNull();
+    }
+
+    @Test
+    void rejectsMalformedCursor() {
+        String noSeparator = Base64.getUrlEncoder().encodeToString("2024-03-01T09:30".getBytes(StandardCharsets.UTF_8));
+        String badTimestamp = Base64.getUrlEncoder().encodeToString("hôm qua|GM-01".getBytes(StandardCharsets.UTF_8));
+
+        for (String cursor : List.of("không phải base64!", noSeparator, badTimestamp)) {
+            assertThatThrownBy(() -> orderService.getMyOrdersByCursor(EMAIL, cursor, 2))
+                    .hasMessage("Cursor không hợp lệ");
+        }
+    }
+
+    private User user(String email) {
+        User user = new User();
+        user.setFullName("Khách " + email);
+        user.setEmail(email);
+        user.setPassword("x");
+        return userRepository.save(user);
+    }
+
+    private void order(String id, User user) {
+        Order order = new Order();
+        order.setId(id);
+        order.setUser(user);
+        order.setFullName(user.getFullName());
+        order.setPhone("0900000000");
+        order.setAddress("Hà Nội");
+        order.setTotal(new BigDecimal("150000"));
+        order.setItemCount(1);
+        orderRepository.save(order);
+    }
+}
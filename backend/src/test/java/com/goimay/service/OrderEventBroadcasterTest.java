@@ -0,0 +1,132 @@
+package com.goimay.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OrderEventBroadcasterTest {
+
+    private static final Pattern NAME = Pattern.compile("event:([^\\n]+)\\n");
+    private static final Pattern ID = Pattern.compile("id:([^\\n]+)\\n");
+
+    private final List<RecordingEmitter> emitters = new CopyOnWriteArrayList<>();
+    private final OrderEventBroadcaster broadcaster = new OrderEventBroadcaster(2, 4, 60_000, 2) {
+        @Override
+        SseEmitter newEmitter() {
+            RecordingEmitter emitter = new RecordingEmitter(emitters.isEmpty());
+            emitters.add(emitter);
+            return emitter;
+        }
+    };
+
+    @AfterEach
+    void tearDown() {
+        emitters.forEach(emitter -> emitter.gate.countDown());
+        broadcaster.shutdown();
+    }
+
+    @Test
+    void slowTabDropsOldestEventsAndIsToldItLagged() throws Exception {
+        broadcaster.subscribe();
+        RecordingEmitter slow = emitters.get(0);
+        // Lượt drain đầu bị chặn khi ghi "ready": mọi sự kiện sau đó chỉ nằm trong hàng đợi 4 chỗ.
+        assertThat(slow.blocked.await(2, TimeUnit.SECONDS)).isTrue();
+
+        for (int i = 1; i <= 6; i++) {
+            broadcaster.onOrderEvent(event("GM" + i));
+        }
+        slow.gate.countDown();
+
+        awaitSize(slow.sent, 6);
+        assertThat(slow.sent).containsExactly("ready", "lagged", "GM3", "GM4", "GM5", "GM6");
+    }
+
+    @Test
+    void slowTabDoesNotHoldBackOtherTabs() throws Exception {
+        broadcaster.subscribe();
+        RecordingEmitter slow = emitters.get(0);
+        assertThat(slow.blocked.await(2, TimeUnit.SECONDS)).isTrue();
+        broadcaster.subscribe();
+        RecordingEmitter fast = emitters.get(1);
+        awaitSize(fast.sent, 1);
+
+        // Tab nhanh theo kịp từng sự kiện dù tab chậm đang giữ một luồng gửi.
+        for (int i = 1; i <= 6; i++) {
+            broadcaster.onOrderEvent(event("GM" + i));
+            awaitSize(fast.sent, i + 1);
+        }
+
+        assertThat(fast.sent).containsExactly("ready", "GM1", "GM2", "GM3", "GM4", "GM5", "GM6");
+        assertThat(slow.sent).containsExactly("ready");
+    }
+
+    @Test
+    void refusesSubscribersBeyondTheLimit() {
+        broadcaster.subscribe();
+        broadcaster.subscribe();
+
+        assertThatThrownBy(broadcaster::subscribe).hasMessageContaining("Quá nhiều kết nối");
+        assertThat(broadcaster.subscriberCount()).isEqualTo(2);
+    }
+
+    private static OrderEvent event(String orderId) {
+        return new OrderEvent(OrderEvent.Type.ORDER_CREATED, orderId, "CHO_XAC_NHAN", null, "Nguyễn Văn A",
+                new BigDecimal("150000"), LocalDateTime.now());
+    }
+
+    private static void awaitSize(List<String> sent, int size) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (sent.size() < size && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Ghi lại tên sự kiện (hoặc id đơn) thay vì ghi ra socket; emitter "chậm" chặn ở lần gửi đầu tới khi mở gate.
+     */
+    private static final class RecordingEmitter extends SseEmitter {
+
+        private final boolean slow;
+        private final CountDownLatch blocked = new CountDownLatch(1);
+        private final CountDownLatch gate = new CountDownLatch(1);
+        private final List<String> sent = new CopyOnWriteArrayList<>();
+
+        RecordingEmitter(boolean slow) {
+            this.slow = slow;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            StringBuilder text = new StringBuilder();
+            for (ResponseBodyEmitter.DataWithMediaType part : builder.build()) {
+                if (part.getData() instanceof String chunk) {
+                    text.append(chunk);
+                }
+            }
+            Matcher id = ID.matcher(text);
+            Matcher name = NAME.matcher(text);
+            sent.add(id.find() ? id.group(1) : name.find() ? name.group(1) : "comment");
+            if (slow && sent.size() == 1) {
+                blocked.countDown();
+                try {
+                    gate.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.goimay.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OrderExportServiceTest {
+
+    @Test
+    void leavesPlainValuesUnquoted() {
+        assertThat(cell("Gối mây tựa lưng")).isEqualTo("Gối mây tựa lưng");
+        assertThat(cell("GM-20240301-0001")).isEqualTo("GM-20240301-0001");
+        assertThat(cell(null)).isEmpty();
+        assertThat(cell("")).isEmpty();
+    }
+
+    @Test
+    void quotesSeparatorsQuotesAndLineBreaks() {
+        assertThat(cell("12 Hàng Mây, Hà Nội")).isEqualTo("\"12 Hàng Mây, Hà Nội\"");
+        assertThat(cell("Gối \"mây\" 40cm")).isEqualTo("\"Gối \"\"mây\"\" 40cm\"");
+        assertThat(cell("Tầng 2\nPhòng 201")).isEqualTo("\"Tầng 2\nPhòng 201\"");
+        assertThat(cell("Tầng 2\r\nPhòng 201")).isEqualTo("\"Tầng 2\r\nPhòng 201\"");
+    }
+
+    @Test
+    void escapesCellsThatSpreadsheetsWouldRunAsFormulas() {
+        assertThat(cell("=HYPERLINK(\"http://x\")")).isEqualTo("\"'=HYPERLINK(\"\"http://x\"\")\"");
+        assertThat(cell("+84900000000")).isEqualTo("'+84900000000");
+        assertThat(cell("-1+1")).isEqualTo("'-1+1");
+        assertThat(cell("@SUM(A1:A2)")).isEqualTo("'@SUM(A1:A2)");
+        assertThat(cell("=1+1,2")).isEqualTo("\"'=1+1,2\"");
+        // Chỉ ký tự đầu ô mới bị coi là công thức.
+        assertThat(cell("a=b")).isEqualTo("a=b");
+    }
+
+    @Test
+    void writesBomHeaderAndEscapedRows() throws Exception {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        ResultSet row = mock(ResultSet.class);
+        when(row.getString(1)).thenReturn("GM-1");
+        when(row.getTimestamp(2)).thenReturn(Timestamp.valueOf(LocalDateTime.of(2024, 3, 1, 9, 30, 5)));
+        when(row.getString(3)).thenReturn("GIAO_HANG_THANH_CONG");
+        when(row.getString(4)).thenReturn("COD");
+        when(row.getString(5)).thenReturn("=cmd|' /C calc'!A0");
+        when(row.getString(6)).thenReturn("0900000000");
+        when(row.getString(8)).thenReturn("12 Hàng Mây, Hà Nội");
+        when(row.getBigDecimal(9)).thenReturn(new BigDecimal("240000"));
+        when(row.getBigDecimal(10)).thenReturn(new BigDecimal("30000.00"));
+        when(row.getBigDecimal(11)).thenReturn(new BigDecimal("2.7E+5"));
+        when(row.getLong(12)).thenReturn(7L);
+        when(row.getString(13)).thenReturn("Gối \"mây\"");
+        when(row.getBigDecimal(14)).thenReturn(new BigDecimal("120000"));
+        when(row.getInt(15)).thenReturn(2);
+        when(row.getBigDecimal(16)).thenReturn(new BigDecimal("240000"));
+        // Bảng lưu trữ trả một dòng, bảng nóng trống.
+        doAnswer(invocation -> {
+            invocation.<RowCallbackHandler>getArgument(1).processRow(row);
+            return null;
+        }).doNothing().when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+
+        StringWriter out = new StringWriter();
+        new OrderExportService(jdbcTemplate).writeCsv(out, LocalDateTime.of(2024, 3, 1, 0, 0),
+                LocalDateTime.of(2024, 3, 2, 0, 0));
+
+        String[] lines = out.toString().split("\r\n");
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).startsWith("\uFEFForder_id,created_at,status,");
+        assertThat(lines[1]).isEqualTo("GM-1,2024-03-01 09:30:05,GIAO_HANG_THANH_CONG,COD,'=cmd|' /C calc'!A0,"
+                + "0900000000,,\"12 Hàng Mây, Hà Nội\",240000,30000.00,270000,7,\"Gối \"\"mây\"\"\",120000,2,240000");
+    }
+
+    private static String cell(String value) {
+        return OrderExportService.append(new StringBuilder(), value).toString();
+    }
+}
@@ -0,0 +1,89 @@
+package com.goimay.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OrderIdGeneratorTest {
+
+    private static final int THREADS = 8;
+    private static final int PER_THREAD = 20_000;
+
+    @Test
+    void concurrentCallersNeverCollideAndEachSeesIncreasingIds() throws Exception {
+        OrderIdGenerator generator = new OrderIdGenerator(3);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<List<String>>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                Callable<List<String>> task = () -> {
+                    start.await();
+                    List<String> ids = new ArrayList<>(PER_THREAD);
+                    for (int i = 0; i < PER_THREAD; i++) {
+                        ids.add(generator.nextId());
+                    }
+                    return ids;
+                };
+                futures.add(pool.submit(task));
+            }
+            start.countDown();
+
+            Set<String> all = new HashSet<>();
+            for (Future<List<String>> future : futures) {
+                List<String> ids = future.get();
+                // Chuỗi có độ dài cố định nên so sánh chuỗi trùng so sánh số: mỗi luồng thấy mã tăng dần.
+                assertThat(ids).isSortedAccordingTo(String::compareTo);
+                assertThat(ids).doesNotHaveDuplicates();
+                all.addAll(ids);
+            }
+            assertThat(all).hasSize(THREADS * PER_THREAD);
+            assertThat(all).allSatisfy(id -> assertThat(id).matches("GM-[0-9A-Z]{13}"));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void sequenceOverflowBorrowsTheNextMillisecondInsteadOfRepeating() {
+        OrderIdGenerator generator = new OrderIdGenerator(0);
+        // Hơn 4096 mã liên tiếp gần như chắc chắn rơi vào cùng một mili-giây.
+        long previous = generator.nextRaw();
+        for (int i = 0; i < 3 * 4096; i++) {
+            long next = generator.nextRaw();
+            assertThat(next).isGreaterThan(previous);
+            previous = next;
+        }
+    }
+
+    @Test
+    void differentNodesNeverShareAnId() {
+        OrderIdGenerator a = new OrderIdGenerator(1);
+        OrderIdGenerator b = new OrderIdGenerator(2);
+        Set<Long> seen = new HashSet<>();
+        for (int i = 0; i < 10_000; i++) {
+            long fromA = a.nextRaw();
+            long fromB = b.nextRaw();
+            assertThat(((fromA >>> 12) & 1023)).isEqualTo(1);
+            assertThat(((fromB >>> 12) & 1023)).isEqualTo(2);
+            assertThat(seen.add(fromA)).isTrue();
+            assertThat(seen.add(fromB)).isTrue();
+        }
+    }
+
+    @Test
+    void rejectsNodeOutsideTenBits() {
+        assertThatThrownBy(() -> new OrderIdGenerator(1024)).isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,232 @@
+package com.goimay.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.goimay.dto.CreateOrderRequest;
+import com.goimay.dto.OrderDTO;
+import com.goimay.exception.ServiceBusyException;
+import com.goimay.model.Order;
+import com.goimay.model.OrderStatus;
+import com.goimay.model.PaymentMethod;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OrderIngestionPipelineTest {
+
+    @TempDir
+    Path dir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final OrderService orderService = mock(OrderService.class);
+    private final OrderBatchWriter writer = mock(OrderBatchWriter.class);
+    private final CountDownLatch writerGate = new CountDownLatch(1);
+    private OrderIngestionPipeline pipeline;
+
+    @AfterEach
+    void tearDown() {
+        writerGate.countDown();
+        if (pipeline != null) {
+            pipeline.stop();
+        }
+    }
+
+    @Test
+    void acknowledgesOnlyOrdersAlreadyInTheWal() throws Exception {
+        when(orderService.prepareOrder(anyString(), any())).thenReturn(prepared(order("GM1")));
+        when(writer.write(anyList(), anyBoolean())).thenAnswer(invocation -> {
+            writerGate.await();
+            return written(invocation.getArgument(0));
+        });
+        start("wal", 2000);
+
+        OrderDTO response = pipeline.place("a@goimay.vn", new CreateOrderRequest());
+
+        assertThat(response).isNotNull();
+        // Luồng ghi còn đang chặn: bản ghi duy nhất của đơn lúc này là dòng trong log.
+        assertThat(walContent()).contains("\"id\":\"GM1\"");
+
+        writerGate.countDown();
+        verify(writer, timeout(2000)).write(anyList(), eq(true));
+        awaitTrue(() -> walContent().isEmpty());
+    }
+
+    @Test
+    void replaysAcknowledgedOrdersAndSkipsTornTail() throws Exception {
+        Files.writeString(wal(), json(order("GM1")) + "\n" + json(order("GM2")) + "\n{\"id\":\"GM3\",\"us",
+                StandardCharsets.UTF_8);
+        when(writer.write(anyList(), anyBoolean())).thenAnswer(invocation -> written(invocation.getArgument(0)));
+
+        start("wal", 2000);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<IngestedOrder>> replayed = ArgumentCaptor.forClass(List.class);
+        verify(writer).write(replayed.capture(), eq(true));
+        assertThat(replayed.getValue()).extracting(IngestedOrder::id).containsExactly("GM1", "GM2");
+        assertThat(walContent()).isEmpty();
+    }
+
+    @Test
+    void keepsWalWhenDatabaseIsUnavailableAtStartup() throws Exception {
+        String content = json(order("GM1")) + "\n";
+        Files.writeString(wal(), content, StandardCharsets.UTF_8);
+        when(writer.write(anyList(), anyBoolean())).thenThrow(new DataAccessResourceFailureException("down"));
+
+        assertThatThrownBy(() -> start("wal", 2000)).isInstanceOf(DataAccessResourceFailureException.class);
+        assertThat(walContent()).isEqualTo(content);
+    }
+
+    @Test
+    void replayedOrderRejectedByDatabaseGoesToDeadLetter() throws Exception {
+        Files.writeString(wal(), json(order("GM1")) + "\n", StandardCharsets.UTF_8);
+        when(writer.write(anyList(), anyBoolean())).thenThrow(new DataIntegrityViolationException("bad row"));
+
+        start("wal", 2000);
+
+        assertThat(Files.readString(deadLetter())).contains("\"id\":\"GM1\"").contains("bad row");
+        assertThat(walContent()).isEmpty();
+    }
+
+    @Test
+    void acknowledgedOrderRejectedByDatabaseIsNotDropped() throws Exception {
+        when(orderService.prepareOrder(anyString(), any())).thenReturn(prepared(order("GM1")));
+        when(writer.write(anyList(), anyBoolean())).thenThrow(new DataIntegrityViolationException("bad row"));
+        start("wal", 2000);
+
+        pipeline.place("a@goimay.vn", new CreateOrderRequest());
+
+        awaitTrue(() -> Files.exists(deadLetter()) && read(deadLetter()).contains("\"id\":\"GM1\""));
+        awaitTrue(() -> walContent().isEmpty());
+    }
+
+    @Test
+    void syncModeGivesUpWaitingWithServiceBusy() throws Exception {
+        when(orderService.prepareOrder(anyString(), any())).thenReturn(prepared(order("GM1")));
+        when(writer.write(anyList(), anyBoolean())).thenAnswer(invocation -> {
+            writerGate.await();
+            return written(invocation.getArgument(0));
+        });
+        start("sync", 200);
+
+        assertThatThrownBy(() -> pipeline.place("a@goimay.vn", new CreateOrderRequest()))
+                .isInstanceOf(ServiceBusyException.class);
+        assertThat(pipeline.stats()).containsEntry("ackTimeouts", 1L);
+    }
+
+    @Test
+    void retryAfterAckTimeoutReturnsTheSameOrderInsteadOfPlacingAnother() throws Exception {
+        when(orderService.prepareOrder(anyString(), any())).thenReturn(prepared(order("GM1")));
+        when(writer.write(anyList(), anyBoolean())).thenAnswer(invocation -> {
+            writerGate.await();
+            return written(invocation.getArgument(0));
+        });
+        start("sync", 200);
+        IdempotencyStore store = new IdempotencyStore(100, 3600);
+        CreateOrderRequest request = new CreateOrderRequest();
+
+        assertThatThrownBy(() -> store.execute("a@goimay.vn", "key-1", request,
+                () -> pipeline.place("a@goimay.vn", request)))
+                .isInstanceOf(ServiceBusyException.class);
+        // Đơn vẫn đang chờ ghi: thử lại vẫn 503 nhưng không chạy lại place.
+        assertThatThrownBy(() -> store.execute("a@goimay.vn", "key-1", request,
+                () -> pipeline.place("a@goimay.vn", request)))
+                .isInstanceOf(ServiceBusyException.class);
+
+        writerGate.countDown();
+        OrderDTO retried = store.execute("a@goimay.vn", "key-1", request, () -> pipeline.place("a@goimay.vn", request));
+
+        assertThat(retried.getId()).isEqualTo("GM1");
+        verify(orderService, times(1)).prepareOrder(anyString(), any());
+        verify(writer, times(1)).write(anyList(), anyBoolean());
+    }
+
+    private void start(String durability, long ackTimeoutMillis) throws IOException {
+        pipeline = new OrderIngestionPipeline(orderService, writer, new CheckoutAdmission(4, 10, 1000, 200), objectMapper,
+                true, durability, 100, 50, wal().toString(), deadLetter().toString(), ackTimeoutMillis);
+        pipeline.start();
+    }
+
+    private Path wal() {
+        return dir.resolve("orders.wal");
+    }
+
+    private Path deadLetter() {
+        return dir.resolve("orders.dead");
+    }
+
+    private String walContent() {
+        return read(wal());
+    }
+
+    private static String read(Path path) {
+        try {
+            return Files.readString(path, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String json(IngestedOrder order) throws IOException {
+        return objectMapper.writeValueAsString(order);
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(3);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met in time").isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+
+    private static OrderBatchWriter.Result written(List<IngestedOrder> batch) {
+        Map<String, Order> orders = new LinkedHashMap<>();
+        for (IngestedOrder order : batch) {
+            orders.put(order.id(), order.toOrder(order.status(), order.tracksStock()));
+        }
+        return new OrderBatchWriter.Result(orders, Map.of(), Set.of());
+    }
+
+    private static OrderIngestionPipeline.Prepared prepared(IngestedOrder order) {
+        OrderDTO response = new OrderDTO();
+        response.setId(order.id());
+        StockReservations.Reservation nothingHeld = new StockReservations(null, null, null).acquire(Map.of(), Map.of(), Map.of());
+        return new OrderIngestionPipeline.Prepared(order, response, nothingHeld);
+    }
+
+    static IngestedOrder order(String id) {
+        return new IngestedOrder(id, 7L, OrderStatus.CHO_XAC_NHAN, PaymentMethod.COD, "Nguyễn Văn A", "0900000000",
+                "Hà Nội", "a@goimay.vn", null, new BigDecimal("150000"), BigDecimal.ZERO, new BigDecimal("150000"), 1,
+                LocalDateTime.of(2024, 1, 1, 10, 0),
+                List.of(new IngestedOrder.Line(1L, "Gối mây", "goi-may", null, new BigDecimal("150000"), 1,
+                        new BigDecimal("150000"), true)));
+    }
+}
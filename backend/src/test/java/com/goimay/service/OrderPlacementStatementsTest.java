@@ -0,0 +1,154 @@
+package com.goimay.service;
+
+import com.goimay.dto.CreateOrderRequest;
+import com.goimay.model.Order;
+import com.goimay.model.OrderItem;
+import com.goimay.model.PaymentMethod;
+import com.goimay.model.Product;
+import com.goimay.model.User;
+import com.goimay.repository.ArchivedOrderItemRepository;
+import com.goimay.repository.ArchivedOrderRepository;
+import com.goimay.repository.OrderItemBatchRepository;
+import com.goimay.repository.OrderRepository;
+import com.goimay.repository.ProductRepository;
+import com.goimay.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * So sánh số câu SQL khi tạo đơn theo lô (một truy vấn IN + một JDBC batch cho order_items) với cách cũ
+ * (findById và persist từng dòng) trên H2, theo số dòng giỏ hàng.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class OrderPlacementStatementsTest {
+
+    private static final int[] CART_SIZES = {1, 5, 15, 50};
+    private static final String EMAIL = "bench@goimay.vn";
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private OrderService orderService;
+    private OrderIdGenerator orderIdGenerator;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        orderIdGenerator = new OrderIdGenerator(1);
+        orderService = new OrderService(orderRepository, mock(ArchivedOrderRepository.class),
+                mock(ArchivedOrderItemRepository.class), userRepository, productRepository,
+                new OrderItemBatchRepository(jdbcTemplate), orderIdGenerator, mock(ApplicationEventPublisher.class),
+                mock(SalesRollupService.class), mock(StockReservations.class), mock(StockHoldService.class));
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        User user = new User();
+        user.setFullName("Bench");
+        user.setEmail(EMAIL);
+        user.setPassword("x");
+        userRepository.save(user);
+        for (int i = 1; i <= CART_SIZES[CART_SIZES.length - 1]; i++) {
+            Product product = new Product();
+            product.setName("Gối mây " + i);
+            product.setSlug("goi-may-" + i);
+            product.setPrice(new BigDecimal("120000"));
+            product.setActive(true);
+            productRepository.save(product);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void batchedPlacementKeepsStatementCountFlatAcrossCartSizes() {
+        Map<Integer, Long> batched = new LinkedHashMap<>();
+        Map<Integer, Long> perLine = new LinkedHashMap<>();
+
+        for (int lines : CART_SIZES) {
+            CreateOrderRequest request = cart(lines);
+            batched.put(lines, statementsFor(request, r -> orderService.createOrder(EMAIL, r)));
+            perLine.put(lines, statementsFor(request, this::placePerLine));
+        }
+
+        long expectedRows = Arrays.stream(CART_SIZES).sum() * 2L;
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM order_items", Long.class)).isEqualTo(expectedRows);
+        // Câu SQL qua Hibernate không đổi theo số dòng (order_items đi bằng JDBC batch),
+        // còn cách cũ tăng ít nhất hai câu mỗi dòng.
+        assertThat(batched.values()).containsOnly(batched.get(CART_SIZES[0]));
+        assertThat(perLine.get(50) - perLine.get(1)).isGreaterThanOrEqualTo(2 * 49);
+    }
+
+    private long statementsFor(CreateOrderRequest request, Consumer<CreateOrderRequest> place) {
+        entityManager.clear();
+        statistics.clear();
+        place.accept(request);
+        entityManager.flush();
+        return statistics.getPrepareStatementCount();
+    }
+
+    /**
+     * Cách tạo đơn trước khi gộp: mỗi dòng một findById và một INSERT order_items (IDENTITY nên không batch được).
+     */
+    private void placePerLine(CreateOrderRequest request) {
+        User user = userRepository.findByEmail(EMAIL).orElseThrow();
+        Order order = new Order();
+        order.setId(orderIdGenerator.nextId());
+        order.setUser(user);
+        order.setPaymentMethod(PaymentMethod.COD);
+        order.setFullName(request.getFullName());
+        order.setPhone(request.getPhone());
+        order.setAddress(request.getAddress());
+        entityManager.persist(order);
+        BigDecimal subtotal = BigDecimal.ZERO;
+        for (CreateOrderRequest.CreateOrderItemRequest line : request.getItems()) {
+            Product product = productRepository.findById(line.getProductId()).orElseThrow();
+            OrderItem item = new OrderItem();
+            item.setOrder(order);
+            item.setProductId(product.getId());
+            item.setName(product.getName());
+            item.setSlug(product.getSlug());
+            item.setUnitPrice(product.getPrice());
+            item.setQuantity(line.getQuantity());
+            item.setLineTotal(product.getPrice().multiply(BigDecimal.valueOf(line.getQuantity())));
+            entityManager.persist(item);
+            subtotal = subtotal.add(item.getLineTotal());
+        }
+        order.setSubtotal(subtotal);
+        order.setTotal(subtotal);
+    }
+
+    private static CreateOrderRequest cart(int lines) {
+        return OrderServiceTest.request(lines);
+    }
+}
@@ -0,0 +1,204 @@
+package com.goimay.service;
+
+import com.goimay.dto.BulkOrderResultDTO;
+import com.goimay.dto.CreateOrderRequest;
+import com.goimay.dto.OrderDTO;
+import com.goimay.model.Order;
+import com.goimay.model.OrderItem;
+import com.goimay.model.OrderStatus;
+import com.goimay.model.Product;
+import com.goimay.model.User;
+import com.goimay.repository.ArchivedOrderItemRepository;
+import com.goimay.repository.ArchivedOrderRepository;
+import com.goimay.repository.OrderItemBatchRepository;
+import com.goimay.repository.OrderRepository;
+import com.goimay.repository.ProductRepository;
+import com.goimay.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OrderServiceTest {
+
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final OrderItemBatchRepository orderItemBatchRepository = mock(OrderItemBatchRepository.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final SalesRollupService salesRollupService = mock(SalesRollupService.class);
+    private final StockReservations stockReservations = mock(StockReservations.class);
+    private final OrderService orderService = new OrderService(orderRepository, mock(ArchivedOrderRepository.class),
+            mock(ArchivedOrderItemRepository.class), userRepository, productRepository, orderItemBatchRepository,
+            new OrderIdGenerator(1), eventPublisher, salesRollupService, stockReservations,
+            mock(StockHoldService.class));
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setId(7L);
+        user.setEmail("a@goimay.vn");
+        when(userRepository.findByEmail("a@goimay.vn")).thenReturn(Optional.of(user));
+        when(orderRepository.saveAndFlush(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void largeCartLoadsProductsOnceAndInsertsItemsInOneBatch() {
+        List<Product> products = new ArrayList<>();
+        for (long id = 1; id <= 15; id++) {
+            products.add(product(id, true));
+        }
+        when(productRepository.findAllById(anyIterable())).thenReturn(products);
+
+        OrderDTO order = orderService.createOrder("a@goimay.vn", request(15));
+
+        verify(productRepository, times(1)).findAllById(anyIterable());
+        verify(productRepository, never()).findById(anyLong());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<OrderItem>> items = ArgumentCaptor.forClass(List.class);
+        verify(orderItemBatchRepository, times(1)).insertAll(anyString(), items.capture());
+        assertThat(items.getValue()).hasSize(15);
+        assertThat(order.getItems()).hasSize(15);
+        assertThat(order.getTotal()).isPositive();
+    }
+
+    @Test
+    void reportsEveryMissingAndInactiveProductTogether() {
+        when(productRepository.findAllById(anyIterable())).thenReturn(List.of(product(1L, true), product(2L, true)));
+        assertThatThrownBy(() -> orderService.createOrder("a@goimay.vn", request(4)))
+                .hasMessage("Product not found: 3, 4");
+
+        when(productRepository.findAllById(anyIterable())).thenReturn(
+                List.of(product(1L, true), product(2L, false), product(3L, false)));
+        assertThatThrownBy(() -> orderService.createOrder("a@goimay.vn", request(3)))
+                .hasMessage("Sản phẩm đã ngừng kinh doanh: Gối mây 2, Gối mây 3");
+
+        verify(orderItemBatchRepository, never()).insertAll(anyString(), anyList());
+    }
+
+    @Test
+    void bulkCancelChangesEligibleOrdersAndReportsTheRestIndividually() {
+        when(orderRepository.findAllByIdForUpdate(anyCollection())).thenReturn(List.of(
+                order("GM-1", OrderStatus.CHO_XAC_NHAN, true),
+                order("GM-2", OrderStatus.GIAO_HANG_THANH_CONG, false),
+                order("GM-3", OrderStatus.DA_HUY, false),
+                order("GM-4", OrderStatus.DA_XAC_NHAN_DANG_CHUAN_BI, false)));
+
+        BulkOrderResultDTO result = orderService.adminBulkCancel(
+                Arrays.asList(" GM-1 ", "GM-2", "GM-3", "GM-4", "GM-1", "", null, "GM-404"));
+
+        assertThat(result.getSucceeded()).isEqualTo(3);
+        assertThat(result.getFailed()).isEqualTo(2);
+        assertThat(result.getResults())
+                .extracting(BulkOrderResultDTO.Item::getOrderId, BulkOrderResultDTO.Item::isSuccess,
+                        BulkOrderResultDTO.Item::getStatus, BulkOrderResultDTO.Item::getMessage)
+                .containsExactlyInAnyOrder(
+                        tuple("GM-1", true, "DA_HUY", null),
+                        tuple("GM-2", false, "GIAO_HANG_THANH_CONG", "Đơn đã giao thành công không thể hủy"),
+                        tuple("GM-3", true, "DA_HUY", null),
+                        tuple("GM-4", true, "DA_HUY", null),
+                        tuple("GM-404", false, null, "Order not found"));
+
+        // Một UPDATE có điều kiện cho đúng các đơn đổi trạng thái; đơn đã hủy sẵn không bị cập nhật lại.
+        verify(orderRepository).findAllByIdForUpdate(Set.of("GM-1", "GM-2", "GM-3", "GM-4", "GM-404"));
+        verify(orderRepository).updateStatus(eq(List.of("GM-1", "GM-4")),
+                eq(EnumSet.of(OrderStatus.CHO_XAC_NHAN, OrderStatus.DA_XAC_NHAN_DANG_CHUAN_BI)),
+                eq(OrderStatus.DA_HUY), any(LocalDateTime.class));
+        verify(stockReservations).releaseForOrders(List.of("GM-1"));
+        verify(salesRollupService).recordStatusChange(argThat(o -> o.getId().equals("GM-1")), eq(OrderStatus.CHO_XAC_NHAN));
+        verify(salesRollupService).recordStatusChange(argThat(o -> o.getId().equals("GM-4")),
+                eq(OrderStatus.DA_XAC_NHAN_DANG_CHUAN_BI));
+        verify(eventPublisher, times(2)).publishEvent(any(OrderEvent.class));
+    }
+
+    @Test
+    void bulkConfirmWithNothingEligibleSkipsTheUpdate() {
+        when(orderRepository.findAllByIdForUpdate(anyCollection())).thenReturn(List.of(
+                order("GM-1", OrderStatus.DA_HUY, false),
+                order("GM-2", OrderStatus.DA_XAC_NHAN_DANG_CHUAN_BI, false)));
+
+        BulkOrderResultDTO result = orderService.adminBulkConfirm(List.of("GM-1", "GM-2"));
+
+        assertThat(result.getSucceeded()).isEqualTo(1);
+        assertThat(result.getFailed()).isEqualTo(1);
+        assertThat(result.getResults()).extracting(BulkOrderResultDTO.Item::getMessage)
+                .containsExactly("Đơn đã hủy không thể xác nhận", null);
+        verify(orderRepository, never()).updateStatus(anyCollection(), anyCollection(), any(), any());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void bulkTransitionRejectsEmptyAndOversizedLists() {
+        assertThatThrownBy(() -> orderService.adminBulkConfirm(Arrays.asList(" ", null)))
+                .hasMessage("Danh sách đơn hàng trống");
+        List<String> tooMany = new ArrayList<>();
+        for (int i = 0; i <= 200; i++) {
+            tooMany.add("GM-" + i);
+        }
+        assertThatThrownBy(() -> orderService.adminBulkCancel(tooMany))
+                .hasMessage("Tối đa 200 đơn mỗi lần");
+        verify(orderRepository, never()).findAllByIdForUpdate(anyCollection());
+    }
+
+    static Order order(String id, OrderStatus status, boolean stockReserved) {
+        Order order = new Order();
+        order.setId(id);
+        order.setStatus(status);
+        order.setStockReserved(stockReserved);
+        order.setTotal(new BigDecimal("150000"));
+        return order;
+    }
+
+    static CreateOrderRequest request(int lines) {
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setFullName("Nguyễn Văn A");
+        request.setPhone("0900000000");
+        request.setAddress("Hà Nội");
+        request.setPaymentMethod("COD");
+        List<CreateOrderRequest.CreateOrderItemRequest> items = new ArrayList<>();
+        for (long id = 1; id <= lines; id++) {
+            CreateOrderRequest.CreateOrderItemRequest line = new CreateOrderRequest.CreateOrderItemRequest();
+            line.setProductId(id);
+            line.setQuantity(2);
+            items.add(line);
+        }
+        request.setItems(items);
+        return request;
+    }
+
+    static Product product(long id, boolean active) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName("Gối mây " + id);
+        product.setSlug("goi-may-" + id);
+        product.setPrice(new BigDecimal("120000"));
+        product.setActive(active);
+        return product;
+    }
+}
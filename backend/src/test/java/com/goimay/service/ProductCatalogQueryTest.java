@@ -0,0 +1,161 @@
+package com.goimay.service;
+
+import com.goimay.dto.CursorPage;
+import com.goimay.dto.ProductDTO;
+import com.goimay.dto.ProductListItemDTO;
+import com.goimay.model.Product;
+import com.goimay.model.ProductImage;
+import com.goimay.repository.ProductImageRepository;
+import com.goimay.repository.ProductRepository;
+import com.goimay.repository.projection.ContentStamp;
+import com.goimay.search.ProductSearchIndex;
+import com.goimay.search.SuggestIndex;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Chạy trên H2 thay cho MySQL: kiểm tra thứ tự phân trang keyset và số câu SQL mỗi trang danh sách.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class ProductCatalogQueryTest {
+
+    private static final int PRODUCTS = 15;
+
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private ProductImageRepository productImageRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private ProductService productService;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        // Cache thật nhưng mỗi lượt gọi trong test dùng một khóa danh sách khác nên đều chạm DB.
+        productService = new ProductService(productRepository, productImageRepository, new ProductCatalogCache(1000, 200, 60),
+                mock(ProductSearchIndex.class), mock(SuggestIndex.class), mock(StockReservations.class));
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        LocalDateTime base = LocalDateTime.of(2024, 3, 1, 9, 0);
+        for (int i = 0; i < PRODUCTS; i++) {
+            Product product = new Product();
+            product.setName("Gối mây " + i);
+            product.setSlug("goi-may-" + i);
+            product.setPrice(new BigDecimal("100000"));
+            product.setActive(true);
+            for (int j = 0; j < 3; j++) {
+                ProductImage image = new ProductImage();
+                image.setProduct(product);
+                image.setUrl("/img/" + i + "-" + j + ".jpg");
+                image.setDisplayOrder(j);
+                product.getImages().add(image);
+            }
+            productRepository.save(product);
+        }
+        entityManager.flush();
+        // 6 sản phẩm đầu có cùng created_at (nhập hàng loạt), phần còn lại mỗi sản phẩm cách nhau một phút.
+        List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM products ORDER BY id", Long.class);
+        for (int i = 0; i < ids.size(); i++) {
+            LocalDateTime createdAt = i < 6 ? base : base.plusMinutes(i);
+            jdbcTemplate.update("UPDATE products SET created_at = ? WHERE id = ?", Timestamp.valueOf(createdAt), ids.get(i));
+        }
+        entityManager.clear();
+    }
+
+    @Test
+    void cursorPagesAreStableAcrossEqualTimestamps() {
+        List<Long> expected = jdbcTemplate.queryForList(
+                "SELECT id FROM products ORDER BY created_at DESC, id DESC", Long.class);
+
+        List<Long> walked = new ArrayList<>();
+        String cursor = "";
+        int pages = 0;
+        do {
+            CursorPage<ProductListItemDTO> page = productService.getProductsByCursor(cursor, 4);
+            page.getContent().forEach(item -> walked.add(item.getId()));
+            assertThat(page.isHasNext()).isEqualTo(page.getNextCursor() != null);
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null && pages < 10);
+
+        assertThat(walked).hasSize(PRODUCTS).doesNotHaveDuplicates().containsExactlyElementsOf(expected);
+        // Ranh giới trang 3/4 rơi giữa nhóm created_at bằng nhau: id phải tiếp tục giảm dần, không lặp, không sót.
+        assertThat(walked.subList(PRODUCTS - 6, PRODUCTS)).isSortedAccordingTo(Comparator.reverseOrder());
+    }
+
+    @Test
+    void malformedCursorIsRejected() {
+        assertThatThrownBy(() -> productService.getProductsByCursor("%%%", 4)).hasMessage("Cursor không hợp lệ");
+        assertThatThrownBy(() -> productService.getProductsByCursor(Paging.encodeCursor(LocalDateTime.now(), "abc"), 4))
+                .hasMessage("Cursor không hợp lệ");
+        assertThatThrownBy(() -> productService.getProductsByCursor("bm90LWEtY3Vyc29y", 4))
+                .hasMessage("Cursor không hợp lệ");
+    }
+
+    @Test
+    void listingPagesCostConstantStatementsRegardlessOfPageSize() {
+        long small = statementsFor(() -> productService.getAllProductsForAdmin(0, 4));
+        long large = statementsFor(() -> productService.getAllProductsForAdmin(0, 12));
+
+        // Trang sản phẩm, COUNT và một truy vấn ảnh cho cả trang: không có N+1 theo số sản phẩm.
+        assertThat(large).isEqualTo(small).isLessThanOrEqualTo(3);
+        assertThat(statementsFor(() -> productService.getAllProducts(0, 12))).isLessThanOrEqualTo(2);
+        assertThat(statementsFor(() -> productService.getProductsByCategory("goi", 0, 12))).isLessThanOrEqualTo(2);
+        assertThat(statementsFor(productService::getSaleProducts)).isEqualTo(1);
+    }
+
+    @Test
+    void galleryOnlyEditMovesTheCatalogVersion() {
+        Long id = jdbcTemplate.queryForObject("SELECT MIN(id) FROM products", Long.class);
+        jdbcTemplate.update("UPDATE products SET updated_at = ?", Timestamp.valueOf(LocalDateTime.of(2024, 1, 1, 0, 0)));
+        ContentStamp before = productRepository.findContentStamp();
+
+        ProductDTO dto = productService.getProductById(id);
+        dto.setImages(List.of("/img/new-0.jpg", "/img/new-1.jpg"));
+        productService.updateProduct(id, dto);
+        entityManager.flush();
+        entityManager.clear();
+
+        // Chỉ product_images đổi, nhưng phiên bản (COUNT, MAX(updatedAt)) vẫn phải đổi để ETag/304 không trả nội dung cũ.
+        ContentStamp after = productRepository.findContentStamp();
+        assertThat(after.getCount()).isEqualTo(before.getCount());
+        assertThat(after.getLastModified()).isAfter(before.getLastModified());
+    }
+
+    private long statementsFor(Supplier<?> call) {
+        entityManager.clear();
+        statistics.clear();
+        call.get();
+        return statistics.getPrepareStatementCount();
+    }
+}
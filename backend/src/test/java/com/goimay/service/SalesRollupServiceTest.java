@@ -0,0 +1,126 @@
+package com.goimay.service;
+
+import com.goimay.model.Order;
+import com.goimay.model.OrderItem;
+import com.goimay.model.OrderStatus;
+import com.goimay.model.PaymentMethod;
+import com.goimay.repository.SalesRollupRepository;
+import com.goimay.repository.SalesRollupWriter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class SalesRollupServiceTest {
+
+    private final SalesRollupWriter writer = mock(SalesRollupWriter.class);
+    private final SalesRollupService service = new SalesRollupService(mock(SalesRollupRepository.class), writer);
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void orderTransactionNeverTouchesRollupRows() {
+        TransactionSynchronizationManager.initSynchronization();
+        service.recordOrderCreated(order("GM1"), List.of(item(1L)));
+        service.flush();
+        // Còn trong transaction đặt đơn: chưa có gì được đệm, càng không có upsert nào giữ khóa dòng.
+        verifyNoInteractions(writer);
+
+        commit();
+        service.flush();
+        verify(writer, times(1)).addAll(anyList());
+    }
+
+    @Test
+    void rolledBackOrderIsNeverCounted() {
+        TransactionSynchronizationManager.initSynchronization();
+        service.recordOrderCreated(order("GM1"), List.of(item(1L)));
+        TransactionSynchronizationManager.clearSynchronization();
+
+        service.flush();
+        verifyNoInteractions(writer);
+    }
+
+    @Test
+    void ordersInTheSameHourAreMergedIntoOneUpsertPerCell() {
+        service.recordOrderCreated(order("GM1"), List.of(item(1L)));
+        service.recordOrderCreated(order("GM2"), List.of(item(1L)));
+
+        service.flush();
+
+        List<SalesRollupWriter.Delta> deltas = flushed(1);
+        // HOUR + DAY, mỗi loại: TOTAL, PAYMENT_METHOD, STATUS, PRODUCT[1]
+        assertThat(deltas).hasSize(8);
+        SalesRollupWriter.Delta hourTotal = deltas.stream()
+                .filter(d -> d.granularity().equals("HOUR") && d.dimension().equals("TOTAL"))
+                .findFirst().orElseThrow();
+        assertThat(hourTotal.orderCount()).isEqualTo(2);
+        assertThat(hourTotal.revenue()).isEqualByComparingTo("300000");
+    }
+
+    @Test
+    void failedFlushIsRetriedWithLaterDeltas() {
+        doThrow(new DataAccessResourceFailureException("down")).doNothing().when(writer).addAll(anyList());
+        service.recordOrderCreated(order("GM1"), List.of(item(1L)));
+        service.flush();
+
+        service.recordOrderCreated(order("GM2"), List.of(item(1L)));
+        service.flush();
+
+        SalesRollupWriter.Delta hourTotal = flushed(2).stream()
+                .filter(d -> d.granularity().equals("HOUR") && d.dimension().equals("TOTAL"))
+                .findFirst().orElseThrow();
+        assertThat(hourTotal.orderCount()).isEqualTo(2);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<SalesRollupWriter.Delta> flushed(int calls) {
+        ArgumentCaptor<List<SalesRollupWriter.Delta>> captor = ArgumentCaptor.forClass(List.class);
+        verify(writer, times(calls)).addAll(captor.capture());
+        return captor.getValue();
+    }
+
+    private static void commit() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+    }
+
+    private static Order order(String id) {
+        Order order = new Order();
+        order.setId(id);
+        order.setStatus(OrderStatus.CHO_XAC_NHAN);
+        order.setPaymentMethod(PaymentMethod.COD);
+        order.setTotal(new BigDecimal("150000"));
+        order.setItemCount(1);
+        order.setCreatedAt(LocalDateTime.of(2024, 3, 1, 9, 15));
+        return order;
+    }
+
+    private static OrderItem item(Long productId) {
+        OrderItem item = new OrderItem();
+        item.setProductId(productId);
+        item.setQuantity(1);
+        item.setLineTotal(new BigDecimal("150000"));
+        return item;
+    }
+}
@@ -0,0 +1,125 @@
+package com.goimay.service;
+
+import com.goimay.dto.CreateOrderRequest;
+import com.goimay.dto.StockHoldRequest;
+import com.goimay.model.User;
+import com.goimay.repository.ProductRepository;
+import com.goimay.repository.StockHoldRepository;
+import com.goimay.repository.UserRepository;
+import com.goimay.repository.projection.HoldUsage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class StockHoldServiceTest {
+
+    private static final long TICK_MILLIS = 50;
+
+    private final StockHoldRepository stockHoldRepository = mock(StockHoldRepository.class);
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final StockReservations stockReservations = mock(StockReservations.class);
+    private final MutableClock clock = new MutableClock();
+    private final StockHoldService service = new StockHoldService(stockHoldRepository, productRepository,
+            userRepository, stockReservations, 600, TICK_MILLIS, 2, 5, clock);
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setId(7L);
+        when(userRepository.findByEmailForUpdate("a@goimay.vn")).thenReturn(Optional.of(user));
+    }
+
+    @Test
+    void failedReleaseIsPutBackOnTheWheelWithBackoff() {
+        // Lỗi lần đầu: xếp lại sau 2 tick.
+        service.retryLater(List.of("h1"));
+        assertThat(service.pollExpired()).isEmpty();
+        clock.advance(TICK_MILLIS);
+        assertThat(service.pollExpired()).isEmpty();
+        clock.advance(TICK_MILLIS);
+        assertThat(service.pollExpired()).containsExactly("h1");
+
+        // Lỗi lần hai: chờ lâu gấp đôi (4 tick).
+        service.retryLater(List.of("h1"));
+        clock.advance(3 * TICK_MILLIS);
+        assertThat(service.pollExpired()).isEmpty();
+        clock.advance(TICK_MILLIS);
+        assertThat(service.pollExpired()).containsExactly("h1");
+    }
+
+    @Test
+    void refusesMoreActiveHoldsThanAllowed() {
+        when(stockHoldRepository.findUsage(eq(7L), any())).thenReturn(usage(2, 2));
+
+        assertThatThrownBy(() -> service.createHold("a@goimay.vn", request(1)))
+                .hasMessageContaining("phiên giữ hàng");
+        verifyNoInteractions(stockReservations);
+    }
+
+    @Test
+    void refusesHoldingMoreThanQuantityCap() {
+        when(stockHoldRepository.findUsage(eq(7L), any())).thenReturn(usage(1, 3));
+
+        assertThatThrownBy(() -> service.createHold("a@goimay.vn", request(3)))
+                .hasMessageContaining("tối đa 5 sản phẩm");
+        verifyNoInteractions(stockReservations);
+    }
+
+    /**
+     * Đồng hồ đứng yên, chỉ tiến khi test gọi advance.
+     */
+    private static final class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2024-03-01T02:00:00Z");
+
+        void advance(long millis) {
+            now = now.plusMillis(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    private static HoldUsage usage(long holds, long quantity) {
+        HoldUsage usage = mock(HoldUsage.class);
+        when(usage.getHolds()).thenReturn(holds);
+        when(usage.getQuantity()).thenReturn(quantity);
+        return usage;
+    }
+
+    private static StockHoldRequest request(int quantity) {
+        CreateOrderRequest.CreateOrderItemRequest line = new CreateOrderRequest.CreateOrderItemRequest();
+        line.setProductId(1L);
+        line.setQuantity(quantity);
+        StockHoldRequest request = new StockHoldRequest();
+        request.setItems(List.of(line));
+        return request;
+    }
+}
@@ -0,0 +1,146 @@
+package com.goimay.service;
+
+import com.goimay.dto.ProductDTO;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StockReservationsTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final ProductCatalogCache productCatalogCache = mock(ProductCatalogCache.class);
+    private final StockReservations reservations =
+            new StockReservations(jdbcTemplate, mock(NamedParameterJdbcTemplate.class), productCatalogCache);
+
+    @Test
+    void concurrentCheckoutsNeverOversell() throws Exception {
+        when(jdbcTemplate.queryForList(anyString(), eq(Integer.class), any())).thenReturn(List.of(0));
+        int stock = 100;
+        int threads = 32;
+        AtomicInteger sold = new AtomicInteger();
+        CountDownLatch go = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            int quantity = 1 + t % 3;
+            pool.execute(() -> {
+                await(go);
+                for (int attempt = 0; attempt < 20; attempt++) {
+                    try {
+                        reservations.acquire(Map.of(1L, quantity), Map.of(1L, stock), Map.of(1L, "Gối mây"));
+                        sold.addAndGet(quantity);
+                    } catch (RuntimeException outOfStock) {
+                        // hết hàng: đúng như mong đợi khi cầu vượt cung
+                    }
+                }
+            });
+        }
+        go.countDown();
+        pool.shutdown();
+        assertThat(pool.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(sold.get()).isLessThanOrEqualTo(stock);
+        // Mọi lượt có số lượng 1 chỉ thất bại khi bộ đếm đã cạn, nên cả lô phải bán gần hết.
+        assertThat(sold.get()).isGreaterThan(stock - 3);
+    }
+
+    @Test
+    void releasedReservationCanBeSoldAgain() {
+        StockReservations.Reservation first = reservations.acquire(Map.of(1L, 5), Map.of(1L, 5), Map.of(1L, "Gối mây"));
+        assertThatThrownBy(() -> reservations.acquire(Map.of(1L, 1), Map.of(1L, 5), Map.of(1L, "Gối mây")))
+                .hasMessageContaining("không đủ hàng");
+
+        first.release();
+        first.release();
+
+        reservations.acquire(Map.of(1L, 5), Map.of(1L, 5), Map.of(1L, "Gối mây"));
+        assertThatThrownBy(() -> reservations.acquire(Map.of(1L, 1), Map.of(1L, 5), Map.of(1L, "Gối mây")))
+                .hasMessageContaining("không đủ hàng");
+    }
+
+    @Test
+    void databaseHasTheLastWordWhenCounterIsStale() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any())).thenReturn(new int[][]{{0}});
+
+        assertThatThrownBy(() -> reservations.reserve(Map.of(1L, 2), Map.of(1L, 10), Map.of(1L, "Gối mây")))
+                .hasMessageContaining("không đủ hàng");
+    }
+
+    @Test
+    void decrementBumpsUpdatedAtAndEvictsOnlyChangedProducts() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any())).thenReturn(new int[][]{{1, 0}});
+
+        boolean[] applied = reservations.decrementEach(List.of(Map.entry(1L, 1), Map.entry(2L, 1)));
+
+        assertThat(applied).containsExactly(true, false);
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate).batchUpdate(sql.capture(), anyCollection(), anyInt(), any());
+        assertThat(sql.getValue()).contains("updated_at = NOW()");
+        verify(productCatalogCache).evictStock(List.of(1L));
+    }
+
+    @Test
+    void releaseBumpsUpdatedAtAndEvicts() {
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any())).thenReturn(new int[][]{{1, 1}});
+
+        reservations.release(Map.of(2L, 1, 1L, 3));
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate).batchUpdate(sql.capture(), anyCollection(), anyInt(), any());
+        assertThat(sql.getValue()).contains("stock = stock +").contains("updated_at = NOW()");
+        verify(productCatalogCache).evictStock(List.of(1L, 2L));
+    }
+
+    @Test
+    void checkoutKeepsCachedListingsAndVersionButDropsStockBearingEntries() {
+        ProductCatalogCache cache = new ProductCatalogCache(100, 100, 600);
+        StockReservations withCache = new StockReservations(jdbcTemplate, mock(NamedParameterJdbcTemplate.class), cache);
+        AtomicInteger loads = new AtomicInteger();
+        ProductDTO product = new ProductDTO();
+        product.setId(1L);
+        product.setSlug("goi-may");
+        cache.getListing("version", () -> "v1");
+        cache.getListing("page:0:12", () -> "grid");
+        cache.getListing(ProductCatalogCache.ADMIN_LISTING_PREFIX + "0:12", () -> "admin");
+        cache.getById(1L, () -> product);
+        when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any())).thenReturn(new int[][]{{1}});
+
+        withCache.decrementEach(List.of(Map.entry(1L, 1)));
+
+        // Trang danh sách và ETag không có stock: một đơn không được xóa chúng.
+        assertThat((String) cache.getListing("version", () -> "v" + loads.incrementAndGet())).isEqualTo("v1");
+        assertThat((String) cache.getListing("page:0:12", () -> "grid" + loads.incrementAndGet())).isEqualTo("grid");
+        assertThat(loads.get()).isZero();
+        // ProductDTO (chi tiết) và trang quản trị có stock nên phải nạp lại.
+        assertThat((String) cache.getListing(ProductCatalogCache.ADMIN_LISTING_PREFIX + "0:12", () -> "admin2"))
+                .isEqualTo("admin2");
+        assertThat(cache.getBySlug("goi-may", () -> null)).isNull();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -4,9 +4,13 @@ import { motion } from 'framer-motion'
 import { adminOrderApi } from '../services/api'
 import '../styles/pages/AdminPage.css'
 
+const PAGE_SIZE = 20
+
 function AdminOrdersPage() {
   const navigate = useNavigate()
   const [orders, setOrders] = useState([])
+  const [page, setPage] = useState(0)
+  const [totalPages, setTotalPages] = useState(0)
   const [loading, setLoading] = useState(true)
   const [message, setMessage] = useState({ type: '', text: '' })
   const [actionLoading, setActionLoading] = useState('')
@@ -22,14 +26,16 @@ function AdminOrdersPage() {
       navigate('/')
       return
     }
-    loadOrders()
+    loadOrders(0)
   }, [navigate])
 
-  const loadOrders = async () => {
+  const loadOrders = async (targetPage = page) => {
     setLoading(true)
     try {
-      const res = await adminOrderApi.getAll()
-      setOrders(res.data || [])
+      const res = await adminOrderApi.getPage(targetPage, PAGE_SIZE)
+      setOrders(res.data?.content || [])
+      setTotalPages(res.data?.totalPages || 0)
+      setPage(targetPage)
     } catch (e) {
       console.error(e)
       setMessage({ type: 'error', text: 'Không tải được danh sách đơn hàng' })
@@ -98,7 +104,7 @@ function AdminOrdersPage() {
             <h1>Quản lý đơn hàng</h1>
             <p>Xác nhận / hủy đơn và theo dõi trạng thái</p>
           </div>
-          <button className="btn-add" onClick={loadOrders} disabled={loading}>
+          <button className="btn-add" onClick={() => loadOrders()} disabled={loading}>
             Làm mới
           </button>
         </div>
@@ -204,6 +210,18 @@ function AdminOrdersPage() {
             </tbody>
           </table>
         </div>
+
+        {totalPages > 1 && (
+          <div className="admin-pagination">
+            <button className="btn-add" onClick={() => loadOrders(page - 1)} disabled={loading || page === 0}>
+              Trang trước
+            </button>
+            <span>Trang {page + 1} / {totalPages}</span>
+            <button className="btn-add" onClick={() => loadOrders(page + 1)} disabled={loading || page + 1 >= totalPages}>
+              Trang sau
+            </button>
+          </div>
+        )}
       </div>
     </div>
   )
@@ -261,6 +261,10 @@ function AdminProductsPage() {
         setSuccess('Thêm sản phẩm thành công!')
       } else {
         await productApi.update(selectedProduct.id, productData)
+        const stockDelta = productData.stock - (selectedProduct.stock || 0)
+        if (stockDelta !== 0) {
+          await productApi.adjustStock(selectedProduct.id, stockDelta)
+        }
         setSuccess('Cập nhật sản phẩm thành công!')
       }
 
@@ -182,7 +182,7 @@ export const orderApi = {
 
 // Order API (Admin)
 export const adminOrderApi = {
-  getAll: () => api.get('/admin/orders'),
+  getPage: (page = 0, size = 20) => api.get('/admin/orders', { params: { page, size } }),
   confirm: (orderId) => api.put(`/admin/orders/${orderId}/confirm`),
   cancel: (orderId) => api.put(`/admin/orders/${orderId}/cancel`),
 }
@@ -360,6 +360,10 @@ export const productApi = {
 
   delete: (id) =>
     api.delete(`/products/${id}`),
+
+  // Tồn kho chỉ đổi theo lượng cộng/trừ, không ghi đè phần đơn đang giữ
+  adjustStock: (id, delta) =>
+    api.post(`/admin/products/${id}/stock`, { delta }),
 }
 
 // Chat API